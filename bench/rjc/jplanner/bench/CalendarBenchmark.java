@@ -0,0 +1,163 @@
+/**************************************************************************
+ *  Copyright (C) 2026 by Richard Crook                                   *
+ *  https://github.com/dazzle50/JPlannerFX                                *
+ *                                                                        *
+ *  This program is free software: you can redistribute it and/or modify  *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  This program is distributed in the hope that it will be useful,       *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with this program.  If not, see http://www.gnu.org/licenses/    *
+ **************************************************************************/
+
+package rjc.jplanner.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rjc.jplanner.plan.Plan;
+import rjc.jplanner.plan.calenders.Calendar;
+import rjc.table.data.types.Date;
+import rjc.table.data.types.DateTime;
+import rjc.table.data.types.Time;
+
+/*************************************************************************************************/
+/****************** Benchmarks calendar day lookups and working-time arithmetic ******************/
+/*************************************************************************************************/
+
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class CalendarBenchmark
+{
+  private static final int  YEARS      = 5;                       // length of date ranges scanned
+  private static final int  DAYS       = YEARS * 365;
+  private static final int  EXCEPTIONS = 2000;                    // exceptions in exception-heavy calendar
+  private static final long HOUR_MS    = Time.MILLIS_PER_HOUR;
+
+  @Param( { "Standard", "Full time", "Fancy", "Exceptions" } )
+  private String            m_calendarName;                       // calendar under test
+
+  private Calendar          m_calendar;                           // calendar under test
+  private Date[]            m_dates;                              // consecutive dates over range
+  private long              m_startMS;                            // start of range in milliseconds
+  private long[]            m_instants;                           // random instants within range
+
+  /******************************************** setup ********************************************/
+  @Setup
+  public void setup()
+  {
+    // default plan calendars, plus standard week with many scattered exceptions
+    var plan = new Plan();
+    plan.initialise();
+    if ( m_calendarName.equals( "Exceptions" ) )
+    {
+      m_calendar = new Calendar( "Exceptions", Date.of( 2000, 1, 1 ), plan.getDay( 0 ), plan.getDay( 0 ),
+          plan.getDay( 1 ), plan.getDay( 1 ), plan.getDay( 1 ), plan.getDay( 1 ), plan.getDay( 1 ) );
+      var random = new Random( 1 );
+      Date first = Date.of( 2024, 1, 1 );
+      for ( int count = 0; count < EXCEPTIONS; count++ )
+        m_calendar.addException( first.plusDays( random.nextInt( DAYS ) ), plan.getDay( random.nextInt( 5 ) ) );
+    }
+    else
+      for ( var calendar : plan.getCalendars() )
+        if ( calendar.getName().equals( m_calendarName ) )
+          m_calendar = calendar;
+
+    // dates and instants over range starting 2024
+    m_dates = new Date[DAYS];
+    m_dates[0] = Date.of( 2024, 1, 1 );
+    for ( int day = 1; day < DAYS; day++ )
+      m_dates[day] = m_dates[day - 1].plusDays( 1 );
+    m_startMS = DateTime.of( m_dates[0], Time.MIN_VALUE ).toMilliseconds();
+
+    var random = new Random( 2 );
+    m_instants = new long[1024];
+    for ( int index = 0; index < m_instants.length; index++ )
+      m_instants[index] = m_startMS + (long) ( random.nextDouble() * DAYS * Time.MILLIS_PER_DAY );
+  }
+
+  /*************************************** getDayOverRange ***************************************/
+  @Benchmark
+  public int getDayOverRange()
+  {
+    // look up day-type for every date in range
+    int hash = 0;
+    for ( var date : m_dates )
+      hash += m_calendar.getDay( date ).hashCode();
+    return hash;
+  }
+
+  /************************************* isWorkingOverRange **************************************/
+  @Benchmark
+  public int isWorkingOverRange()
+  {
+    // test working state of every date in range
+    int count = 0;
+    for ( var date : m_dates )
+      if ( m_calendar.isWorking( date ) )
+        count++;
+    return count;
+  }
+
+  /************************************** countWorkingDays ***************************************/
+  @Benchmark
+  public int countWorkingDays()
+  {
+    // count working days over whole range in one call
+    return m_calendar.countWorkingDays( m_dates[0], m_dates[DAYS - 1] );
+  }
+
+  /***************************************** workBetween *****************************************/
+  @Benchmark
+  public long workBetween()
+  {
+    // worked milliseconds between pairs of random instants
+    long total = 0L;
+    for ( int index = 1; index < m_instants.length; index++ )
+      total += m_calendar.workBetween( m_instants[index - 1], m_instants[index] );
+    return total;
+  }
+
+  /******************************************* addWork *******************************************/
+  @Benchmark
+  public long addWork()
+  {
+    // add varying amounts of work to random instants
+    long total = 0L;
+    for ( int index = 0; index < m_instants.length; index++ )
+      total += m_calendar.addWork( m_instants[index], ( index % 200 + 1 ) * HOUR_MS );
+    return total;
+  }
+
+  /************************************** nonWorkingSpans ****************************************/
+  @Benchmark
+  public int nonWorkingSpans()
+  {
+    // non-working spans over whole range as needed by gantt shading
+    return m_calendar.nonWorkingSpans( DateTime.ofMilliseconds( m_startMS ),
+        DateTime.ofMilliseconds( m_startMS + DAYS * (long) Time.MILLIS_PER_DAY ) ).size();
+  }
+
+}
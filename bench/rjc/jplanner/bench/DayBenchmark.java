@@ -0,0 +1,125 @@
+/**************************************************************************
+ *  Copyright (C) 2026 by Richard Crook                                   *
+ *  https://github.com/dazzle50/JPlannerFX                                *
+ *                                                                        *
+ *  This program is free software: you can redistribute it and/or modify  *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  This program is distributed in the hope that it will be useful,       *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with this program.  If not, see http://www.gnu.org/licenses/    *
+ **************************************************************************/
+
+package rjc.jplanner.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rjc.jplanner.plan.days.Day;
+import rjc.table.data.types.Time;
+
+/*************************************************************************************************/
+/************************ Benchmarks day-type work lookups within a day **************************/
+/*************************************************************************************************/
+
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class DayBenchmark
+{
+  @Param( { "1", "2", "6" } )
+  private int   m_periods; // number of work periods in day-type
+
+  private Day   m_day;     // day-type under test
+  private int[] m_times;   // random milliseconds-of-day
+  private int[] m_works;   // random work amounts within day
+
+  /******************************************** setup ********************************************/
+  @Setup
+  public void setup()
+  {
+    // day-type with requested number of equal one-hour periods spread from 06:00
+    var periods = new double[m_periods * 2];
+    for ( int period = 0; period < m_periods; period++ )
+    {
+      periods[period * 2] = 6.0 + period * 2.5;
+      periods[period * 2 + 1] = 7.0 + period * 2.5;
+    }
+    m_day = new Day( "Bench", 1.0, periods );
+
+    var random = new Random( 3 );
+    m_times = new int[1024];
+    m_works = new int[1024];
+    for ( int index = 0; index < m_times.length; index++ )
+    {
+      m_times[index] = random.nextInt( Time.MILLIS_PER_DAY + 1 );
+      m_works[index] = random.nextInt( m_day.getWorkMS() + 1 );
+    }
+  }
+
+  /****************************************** getWorkMS ******************************************/
+  @Benchmark
+  public long getWorkMS()
+  {
+    // total work in day-type
+    long total = 0L;
+    for ( int index = 0; index < m_times.length; index++ )
+      total += m_day.getWorkMS();
+    return total;
+  }
+
+  /***************************************** workBefore ******************************************/
+  @Benchmark
+  public long workBefore()
+  {
+    // work done before random times of day
+    long total = 0L;
+    for ( int time : m_times )
+      total += m_day.workBefore( time );
+    return total;
+  }
+
+  /****************************************** workEnd ********************************************/
+  @Benchmark
+  public long workEnd()
+  {
+    // earliest time random amounts of work are done
+    long total = 0L;
+    for ( int work : m_works )
+      total += m_day.workEnd( work );
+    return total;
+  }
+
+  /***************************************** workStart *******************************************/
+  @Benchmark
+  public long workStart()
+  {
+    // latest time random amounts of work are done
+    long total = 0L;
+    for ( int work : m_works )
+      total += m_day.workStart( work );
+    return total;
+  }
+
+}
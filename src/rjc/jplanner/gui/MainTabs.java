@@ -51,4 +51,11 @@ public class MainTabs extends TabPane
     getTabs().addAll( m_plan, m_tasks, m_resources, m_calendars, m_days );
   }
 
+  /***************************************** redrawGantt *****************************************/
+  public void redrawGantt()
+  {
+    // redraw gantt on tasks tab
+    ( (TasksTab) m_tasks ).redrawGantt();
+  }
+
 }
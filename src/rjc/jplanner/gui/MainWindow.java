@@ -20,7 +20,6 @@ package rjc.jplanner.gui;
 
 import javafx.scene.Scene;
 import javafx.scene.control.MenuBar;
-import javafx.scene.control.TabPane;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.Background;
 import javafx.scene.layout.BackgroundFill;
@@ -39,7 +38,7 @@ public class MainWindow extends Scene
   private GridPane    m_grid;      // root grid layout container
   private PlanContext m_context;   // plan context shared across main window components
   private MenuBar     m_menus;     // menus at top of scene
-  private TabPane     m_tabs;      // tabs containing application functionality
+  private MainTabs    m_tabs;      // tabs containing application functionality
   private TextField   m_statusBar; // status bar at bottom of scene
 
   /**************************************** constructor ******************************************/
@@ -98,4 +97,12 @@ public class MainWindow extends Scene
     GridPane.setVgrow( m_tabs, Priority.ALWAYS );
   }
 
+  /***************************************** redrawGantt *****************************************/
+  public void redrawGantt()
+  {
+    // redraw gantt, for example after scheduling has moved tasks
+    if ( m_tabs != null )
+      m_tabs.redrawGantt();
+  }
+
 }
\ No newline at end of file
@@ -41,6 +41,7 @@ public class PlanContext
   private final ObservableStatus m_status;
   private final UndoStack        m_undoStack;
   private final MainWindow       m_gui;
+  private final ScheduleRunner   m_scheduleRunner;
 
   // data wrappers for TableView data sources
   private DaysData               m_dayData;
@@ -55,6 +56,7 @@ public class PlanContext
     m_status = new ObservableStatus();
     m_undoStack = new UndoStack();
     m_gui = gui;
+    m_scheduleRunner = new ScheduleRunner( this );
 
     var plan = new Plan();
     plan.initialise();
@@ -64,7 +66,8 @@ public class PlanContext
   /**************************************** replacePlan ******************************************/
   public void replacePlan( Plan newPlan )
   {
-    // rebuild TableView data sources using plan sub-collections
+    // abandon scheduling of any previous plan, then rebuild TableView data sources using plan sub-collections
+    m_scheduleRunner.cancel();
     m_plan = newPlan;
     m_dayData = new DaysData( m_plan.getDays() );
     m_calendarData = new CalendarsData( m_plan.getCalendars() );
@@ -104,6 +107,11 @@ public class PlanContext
     return m_gui;
   }
 
+  public ScheduleRunner getScheduleRunner()
+  {
+    return m_scheduleRunner;
+  }
+
   public DaysData getDaysTableData()
   {
     return m_dayData;
@@ -0,0 +1,183 @@
+/**************************************************************************
+ *  Copyright (C) 2026 by Richard Crook                                   *
+ *  https://github.com/dazzle50/JPlannerFX                                *
+ *                                                                        *
+ *  This program is free software: you can redistribute it and/or modify  *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  This program is distributed in the hope that it will be useful,       *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with this program.  If not, see http://www.gnu.org/licenses/    *
+ **************************************************************************/
+
+package rjc.jplanner.gui;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javafx.animation.Animation;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.util.Duration;
+import rjc.jplanner.plan.schedule.Scheduler;
+import rjc.table.signal.ObservableStatus.Level;
+
+/*************************************************************************************************/
+/********** Runs plan scheduling on a worker thread, publishing results on the FX thread *********/
+/*************************************************************************************************/
+
+public class ScheduleRunner
+{
+  private static final ExecutorService WORKER        = Executors.newSingleThreadExecutor( ScheduleRunner::thread );
+  private static final Duration        RESTART_DELAY = Duration.millis( 500 ); // editing pause before rerun
+
+  private PlanContext                  m_context; // context whose plan is scheduled
+  private Scheduler                    m_running; // run being computed or awaiting publish, or null
+  private boolean                      m_level;   // true if latest requested run is resource levelled
+  private long                         m_started; // nano-time latest run was requested
+  private PauseTransition              m_restart; // reruns superseded run once editing pauses
+
+  /**************************************** constructor ******************************************/
+  public ScheduleRunner( PlanContext context )
+  {
+    // runner for plan in context, all methods must be called on the FX thread
+    m_context = context;
+    m_restart = new PauseTransition( RESTART_DELAY );
+    m_restart.setOnFinished( event -> start( m_level ) );
+  }
+
+  /******************************************** thread *******************************************/
+  private static Thread thread( Runnable runnable )
+  {
+    // worker is a daemon so never prevents application exit
+    var thread = new Thread( runnable, "Scheduler" );
+    thread.setDaemon( true );
+    return thread;
+  }
+
+  /******************************************** start ********************************************/
+  public void start( boolean level )
+  {
+    // cancel any current run, snapshot plan on FX thread, then compute on worker thread
+    cancel();
+    m_level = level;
+    m_started = System.nanoTime();
+    var status = m_context.getStatus();
+    var scheduler = new Scheduler( m_context.getPlan() );
+    try
+    {
+      scheduler.prepare( level );
+    }
+    catch ( IllegalStateException exception )
+    {
+      status.update( Level.ERROR, "Schedule failed: " + exception.getMessage() );
+      return;
+    }
+
+    m_running = scheduler;
+    status.update( Level.INFO, "Scheduling ..." );
+    WORKER.execute( () ->
+    {
+      try
+      {
+        scheduler.compute();
+        Platform.runLater( () -> publish( scheduler ) );
+      }
+      catch ( CancellationException exception )
+      {
+        // superseded run, nothing to publish
+      }
+      catch ( RuntimeException exception )
+      {
+        Platform.runLater( () -> failed( scheduler, exception ) );
+      }
+    } );
+  }
+
+  /******************************************* publish *******************************************/
+  private void publish( Scheduler scheduler )
+  {
+    // apply results to plan in this single FX pulse, unless run was superseded meanwhile
+    if ( scheduler != m_running )
+      return;
+    m_running = null;
+
+    var status = m_context.getStatus();
+    try
+    {
+      var schedule = scheduler.publish();
+      m_context.getTasksTableData().signalTasksChanged();
+      m_context.getGui().redrawGantt();
+      long ms = ( System.nanoTime() - m_started ) / 1_000_000L;
+      status.update( Level.INFO, "Scheduled in " + ms + " ms, plan end " + schedule.getEnd() );
+    }
+    catch ( CancellationException exception )
+    {
+      // plan changed structurally since snapshot, so schedule again once editing pauses
+      m_restart.playFromStart();
+    }
+    catch ( IllegalStateException exception )
+    {
+      status.update( Level.ERROR, "Schedule failed: " + exception.getMessage() );
+    }
+  }
+
+  /******************************************* failed ********************************************/
+  private void failed( Scheduler scheduler, RuntimeException exception )
+  {
+    // report failure of current run
+    if ( scheduler != m_running )
+      return;
+    m_running = null;
+    m_context.getStatus().update( Level.ERROR, "Schedule failed: " + exception.getMessage() );
+  }
+
+  /******************************************* edited ********************************************/
+  public void edited()
+  {
+    // plan edit supersedes any current run, which is rerun once editing pauses
+    if ( m_running != null )
+    {
+      m_running.cancel();
+      m_running = null;
+      m_restart.playFromStart();
+    }
+    else if ( m_restart.getStatus() == Animation.Status.RUNNING )
+      m_restart.playFromStart();
+  }
+
+  /****************************************** outdated *******************************************/
+  public void outdated()
+  {
+    // plan edit could not be rescheduled incrementally, so schedule in background once editing pauses
+    if ( m_running != null )
+      m_running.cancel();
+    m_running = null;
+    m_restart.playFromStart();
+  }
+
+  /******************************************* cancel ********************************************/
+  public void cancel()
+  {
+    // abandon any current or pending run
+    m_restart.stop();
+    if ( m_running != null )
+      m_running.cancel();
+    m_running = null;
+  }
+
+  /****************************************** isRunning ******************************************/
+  public boolean isRunning()
+  {
+    // return true if a run is being computed or is waiting to be rerun
+    return m_running != null || m_restart.getStatus() == Animation.Status.RUNNING;
+  }
+
+}
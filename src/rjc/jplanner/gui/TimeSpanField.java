@@ -38,7 +38,7 @@ public class TimeSpanField extends NumberSpinField
   {
     // set default editor characteristics
     setRange( 0, 9999 );
-    setValue( new TimeSpan( "0S" ) );
+    setValue( TimeSpan.ofHundredths( 0L, Unit.SECONDS ) );
 
     // add listener for text and focus changes
     textProperty().addListener( ( property, oldText, newText ) -> checkText( newText ) );
@@ -66,7 +66,7 @@ public class TimeSpanField extends NumberSpinField
       char ch = event.getCharacter().charAt( 0 );
       var unit = Unit.fromChar( ch );
       if ( unit != null )
-        setValue( new TimeSpan( m_span.getNumber(), unit ) );
+        setValue( TimeSpan.ofHundredths( m_span.getHundredths(), unit ) );
     } );
 
     // if ESC pressed ensure text reflects last valid time-span
@@ -103,7 +103,7 @@ public class TimeSpanField extends NumberSpinField
     // if valid time-span, store it and update status
     if ( Character.isDigit( text.charAt( 0 ) ) || text.charAt( 0 ) == '.' )
     {
-      m_span = new TimeSpan( text );
+      m_span = TimeSpan.parse( text );
       if ( getStatus() != null )
       {
         getStatus().update( Level.INFO, m_span.toStringLong() );
@@ -135,8 +135,7 @@ public class TimeSpanField extends NumberSpinField
         var units = Unit.fromChar( ch );
         if ( units != null )
         {
-          m_span.setUnit( units );
-          setValue( m_span );
+          setValue( TimeSpan.ofHundredths( m_span.getHundredths(), units ) );
         }
         return;
       }
@@ -222,8 +222,7 @@ public class DaysData extends TableData implements IDataSwapRows, IDataInsertDel
     {
       var day = m_days.get( dataRow );
       var usedBy = calendars.stream()
-          .filter( calendar -> calendar.getNormals().contains( day ) || calendar.getExceptions().containsValue( day ) )
-          .map( calendar -> "'" + calendar.getName() + "'" ).toList();
+          .filter( calendar -> calendar.usesDay( day ) ).map( calendar -> "'" + calendar.getName() + "'" ).toList();
 
       if ( !usedBy.isEmpty() )
         messages.add( "Day-type '" + day.getName() + "' is used by calendar " + String.join( ", ", usedBy ) );
@@ -111,6 +111,13 @@ public class Gantt extends Region
     super.layoutChildren();
   }
 
+  /******************************************* redraw ********************************************/
+  public void redraw()
+  {
+    // redraw gantt plot, as task dates may have changed
+    m_plot.redraw();
+  }
+
   /************************************* axesHeightProperty **************************************/
   public ReadOnlyInteger axesHeightProperty()
   {
@@ -23,9 +23,6 @@ import javafx.scene.canvas.GraphicsContext;
 import rjc.jplanner.gui.PlanContext;
 import rjc.jplanner.gui.tasks.TasksView;
 import rjc.jplanner.plan.calenders.Calendar;
-import rjc.table.data.types.Date;
-import rjc.table.data.types.DateTime;
-import rjc.table.data.types.Time;
 
 /*************************************************************************************************/
 /***************** GanttPlot provides a view of the plan tasks and dependencies ******************/
@@ -104,36 +101,19 @@ class GanttPlot extends Canvas
   {
     // shade non-working time on gantt-plot
     Calendar calendar = ( (PlanContext) m_view.getData().getUserData() ).getPlan().getDefaultCalendar();
-    Date date = m_scale.datetime( x - 1 ).getDate();
-    int endEpoch = m_scale.datetime( x + w ).getDate().getEpochDay();
-    int startShadeEpoch;
-
     GraphicsContext gc = getGraphicsContext2D();
     gc.setFill( Gantt.GANTT_NONWORKING );
-    do
+
+    for ( var span : calendar.nonWorkingSpans( m_scale.datetime( x - 1 ), m_scale.datetime( x + w ) ) )
     {
-      // find start of non-working period
-      if ( !calendar.isWorking( date ) )
+      // if width at least 1 pixel shade non-working period
+      long width = ( span.end().toMilliseconds() - span.start().toMilliseconds() ) / m_scale.getMsPP();
+      if ( width > 0L )
       {
-        startShadeEpoch = date.getEpochDay();
-
-        // find end of non-working period
-        do
-          date = date.plusDays( 1 );
-        while ( date.getEpochDay() <= endEpoch && !calendar.isWorking( date ) );
-
-        // if width at least 1 pixel shade non-working period
-        long width = ( date.getEpochDay() - startShadeEpoch ) * Time.MILLIS_PER_DAY / m_scale.getMsPP();
-        if ( width > 0L )
-        {
-          long xe = m_scale.x( DateTime.of( date, Time.MIN_VALUE ) );
-          gc.fillRect( xe - width, y, width, h );
-        }
+        long xe = m_scale.x( span.end() );
+        gc.fillRect( xe - width, y, width, h );
       }
-
-      date = date.plusDays( 1 );
     }
-    while ( date.getEpochDay() <= endEpoch );
   }
 
   /****************************************** drawTasks ******************************************/
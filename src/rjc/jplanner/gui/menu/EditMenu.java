@@ -37,6 +37,7 @@ public class EditMenu extends Menu
   private MenuItem        m_editUndo;
   private MenuItem        m_editRedo;
   private UndoStack       m_undostack;
+  private PlanContext     m_context;
 
   private static Modifier CONTROL = KeyCombination.CONTROL_DOWN;
 
@@ -46,12 +47,14 @@ public class EditMenu extends Menu
     // construct edit menu for main window menu bar
     setText( "Edit" );
     m_undostack = context.getUndoStack();
+    m_context = context;
 
     getItems().add( undo() );
     getItems().add( redo() );
     getItems().add( new SeparatorMenuItem() );
     getItems().add( findReplace() );
     getItems().add( schedule() );
+    getItems().add( level() );
 
     // just before menu is show update the undo/redo menu items
     setOnShowing( event ->
@@ -104,8 +107,24 @@ public class EditMenu extends Menu
   {
     // trigger plan scheduling
     MenuItem editSchedule = new MenuItem( "Schedule" );
-    editSchedule.setDisable( true );
+    editSchedule.setOnAction( event -> schedulePlan( false ) );
     return editSchedule;
   }
 
+  /******************************************** level ********************************************/
+  private MenuItem level()
+  {
+    // trigger plan scheduling with resource levelling by task priority
+    MenuItem editLevel = new MenuItem( "Schedule with levelling" );
+    editLevel.setOnAction( event -> schedulePlan( true ) );
+    return editLevel;
+  }
+
+  /**************************************** schedulePlan *****************************************/
+  private void schedulePlan( boolean level )
+  {
+    // schedule plan on worker thread, results are published and reported on status bar when ready
+    m_context.getScheduleRunner().start( level );
+  }
+
 }
@@ -23,6 +23,7 @@ import java.util.Collections;
 import java.util.List;
 
 import javafx.geometry.Pos;
+import rjc.jplanner.gui.PlanContext;
 import rjc.jplanner.plan.resources.Resource;
 import rjc.jplanner.plan.resources.Resource.FIELD;
 import rjc.jplanner.plan.resources.Resources;
@@ -103,8 +104,11 @@ public class ResourcesData extends TableData implements IDataSwapRows, IDataInse
     if ( commit && dataColumn == FIELD.Initials.ordinal() )
       signalRowChanged( dataRow );
 
-    // test if value can/could be set
-    return m_resources.setValue( dataRow, dataColumn, newValue, commit );
+    // test if value can/could be set, a committed edit supersedes any background scheduling run
+    String error = m_resources.setValue( dataRow, dataColumn, newValue, commit );
+    if ( commit && error == null && getUserData() instanceof PlanContext context )
+      context.getScheduleRunner().edited();
+    return error;
   }
 
   /****************************************** swapRows *******************************************/
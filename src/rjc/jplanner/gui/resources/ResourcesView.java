@@ -87,7 +87,7 @@ public class ResourcesView extends TableView
       case Start, End:
         return new EditorDate();
 
-      case Available:
+      case Available, Cost:
         return new EditorDouble();
 
       case Calendar:
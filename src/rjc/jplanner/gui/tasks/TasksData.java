@@ -20,9 +20,11 @@ package rjc.jplanner.gui.tasks;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 
 import javafx.geometry.Pos;
+import rjc.jplanner.gui.PlanContext;
 import rjc.jplanner.plan.tasks.Predecessors;
 import rjc.jplanner.plan.tasks.Task;
 import rjc.jplanner.plan.tasks.Task.FIELD;
@@ -80,7 +82,9 @@ public class TasksData extends TableData implements IDataSwapRows, IDataInsertDe
     if ( dataColumn == HEADER )
       return dataRow;
 
-    // otherwise return value from tasks array
+    // successors come from tasks successor index, otherwise return value from tasks array
+    if ( dataColumn == FIELD.Successors.ordinal() )
+      return m_tasks.getSuccessorsText( dataRow );
     return m_tasks.get( dataRow ).getValue( dataColumn );
   }
 
@@ -101,7 +105,7 @@ public class TasksData extends TableData implements IDataSwapRows, IDataInsertDe
       // different fields have different text alignments
       visual.textAlignment = switch ( FIELD.values()[dataColumn] )
       {
-        case Title, Comment, Predecessors, Resources -> Pos.CENTER_LEFT;
+        case Title, Comment, Predecessors, Successors, Resources -> Pos.CENTER_LEFT;
         case Work -> Pos.CENTER_RIGHT;
         default -> Pos.CENTER;
       };
@@ -129,8 +133,33 @@ public class TasksData extends TableData implements IDataSwapRows, IDataInsertDe
     if ( commit && ( dataColumn == FIELD.Title.ordinal() || dataColumn == FIELD.Type.ordinal() ) )
       signalRowChanged( dataRow );
 
-    // test if value can/could be set
-    return m_tasks.setValue( dataRow, dataColumn, newValue, commit );
+    // test if value can/could be set, signalling any rows moved by rescheduling
+    String error = m_tasks.setValue( dataRow, dataColumn, newValue, commit );
+    if ( commit )
+      for ( int row : m_tasks.takeRescheduled() )
+        signalRowChanged( row );
+    if ( commit && error == null )
+      edited();
+    return error;
+  }
+
+  /******************************************* edited ********************************************/
+  private void edited()
+  {
+    // committed edit supersedes any background scheduling run, or needs one if it could not be rescheduled
+    if ( getUserData() instanceof PlanContext context )
+      if ( m_tasks.takeOutdated() )
+        context.getScheduleRunner().outdated();
+      else
+        context.getScheduleRunner().edited();
+  }
+
+  /************************************** signalTasksChanged *************************************/
+  public void signalTasksChanged()
+  {
+    // signal every task row changed, for example after scheduling has moved start & end
+    for ( int row = 0; row < getRowCount(); row++ )
+      signalRowChanged( row );
   }
 
   /****************************************** swapRows *******************************************/
@@ -144,7 +173,10 @@ public class TasksData extends TableData implements IDataSwapRows, IDataInsertDe
   @Override
   public boolean swapRows( int row1, int row2 )
   {
+    // swapping can move tasks in or out of summaries
     Collections.swap( m_tasks, row1, row2 );
+    m_tasks.updateSummaries();
+    edited();
     return true;
   }
 
@@ -166,13 +198,14 @@ public class TasksData extends TableData implements IDataSwapRows, IDataInsertDe
     if ( rowData.get( 0 ) instanceof TasksPredChanges tasksPredChanges )
     {
       // insert the new tasks and update row count
-      m_tasks.addAll( insertIndex, tasksPredChanges.tasks() );
+      m_tasks.insertTasks( insertIndex, tasksPredChanges.tasks() );
       setRowCount( getRowCount() + tasksPredChanges.tasks().size() );
 
       // loop through the predecessor changes and restore the predecessors for each task
       for ( TaskPredecessors change : tasksPredChanges.changes() )
-        change.task().setValue( FIELD.Predecessors.ordinal(), change.predecessors(), true );
+        m_tasks.setPredecessors( change.task(), change.predecessors() );
 
+      edited();
       return true;
     }
 
@@ -192,26 +225,26 @@ public class TasksData extends TableData implements IDataSwapRows, IDataInsertDe
   @Override
   public List<Object> deleteRows( int deleteIndex, int count )
   {
-    // snapshot the tasks being removed before clearing the sublist
-    var removedTasks = new ArrayList<Task>( m_tasks.subList( deleteIndex, deleteIndex + count ) );
-    m_tasks.subList( deleteIndex, deleteIndex + count ).clear();
+    // remaining tasks that depend on the tasks to delete are found from the network before removal
+    var removedSet = Collections.newSetFromMap( new IdentityHashMap<Task, Boolean>() );
+    removedSet.addAll( m_tasks.subList( deleteIndex, deleteIndex + count ) );
+    var dependents = Collections.newSetFromMap( new IdentityHashMap<Task, Boolean>() );
+    for ( Task removed : removedSet )
+      for ( var successor : m_tasks.getSuccessors( removed ) )
+        if ( !removedSet.contains( successor.task ) )
+          dependents.add( successor.task );
+
+    // remove the tasks, keeping them for undo
+    var removedTasks = m_tasks.removeTasks( deleteIndex, count );
     setRowCount( getRowCount() - count );
 
-    // loop through remaining tasks and remove any dependencies that reference the deleted tasks
+    // remove any dependencies that reference the deleted tasks
     var predecessorChanges = new ArrayList<TaskPredecessors>();
-    for ( Task task : m_tasks )
+    for ( Task task : dependents )
     {
       Predecessors beforeRemove = task.getPredecessors();
-      if ( beforeRemove == null )
-        continue;
-
-      // altered predecessors will have shorter length than before
-      Predecessors afterRemove = Predecessors.withoutTasks( beforeRemove, removedTasks );
-      if ( afterRemove == null || beforeRemove.size() != afterRemove.size() )
-      {
-        task.setValue( FIELD.Predecessors.ordinal(), afterRemove, true );
-        predecessorChanges.add( new TaskPredecessors( task, beforeRemove ) );
-      }
+      m_tasks.setPredecessors( task, Predecessors.withoutTasks( beforeRemove, removedSet ) );
+      predecessorChanges.add( new TaskPredecessors( task, beforeRemove ) );
     }
 
     // create undo data for the deleted tasks and any predecessor changes, add nulls to list to match size of deleted rows
@@ -220,6 +253,7 @@ public class TasksData extends TableData implements IDataSwapRows, IDataInsertDe
     while ( undoData.size() < count )
       undoData.add( null );
 
+    edited();
     return undoData;
   }
 
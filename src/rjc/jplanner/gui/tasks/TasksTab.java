@@ -61,4 +61,11 @@ public class TasksTab extends Tab
     } );
 
   }
+
+  /***************************************** redrawGantt *****************************************/
+  public void redrawGantt()
+  {
+    // redraw gantt plot, for example after scheduling has moved tasks
+    m_gantt.redraw();
+  }
 }
@@ -18,13 +18,22 @@
 
 package rjc.jplanner.plan;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
 import rjc.jplanner.plan.calenders.Calendar;
 import rjc.jplanner.plan.calenders.Calendars;
+import rjc.jplanner.plan.calenders.WorkProfile;
+import rjc.jplanner.plan.calenders.WorkProfiles;
 import rjc.jplanner.plan.days.Day;
 import rjc.jplanner.plan.days.Days;
 import rjc.jplanner.plan.resources.Resource;
 import rjc.jplanner.plan.resources.Resources;
+import rjc.jplanner.plan.schedule.Schedule;
+import rjc.jplanner.plan.schedule.Scheduler;
 import rjc.jplanner.plan.tasks.Task;
+import rjc.jplanner.plan.tasks.TaskResources;
 import rjc.jplanner.plan.tasks.Tasks;
 import rjc.table.Utils;
 import rjc.table.data.types.DateTime;
@@ -46,11 +55,15 @@ public class Plan
   private String    m_savedBy;        // who saved last
   private DateTime  m_savedWhen;      // when was last saved
   private String    m_notes;          // plan notes
+  private Schedule  m_schedule;       // results of latest scheduling
+  private Scheduler m_scheduler;      // scheduler of latest scheduling, for incremental rescheduling
 
-  private Tasks     tasks;            // list of plan tasks
-  private Resources resources;        // list of plan resources
-  private Calendars calendars;        // list of plan calendars
-  private Days      daytypes;         // list of plan day types
+  private Tasks               tasks;     // list of plan tasks
+  private Resources           resources; // list of plan resources
+  private Calendars           calendars; // list of plan calendars
+  private Days                daytypes;  // list of plan day types
+  private WorkProfiles        profiles;  // cache of calendar work profiles
+  private ArrayList<Scenario> scenarios; // what-if forks of this plan
 
   /**************************************** constructor ******************************************/
   public Plan()
@@ -60,6 +73,8 @@ public class Plan
     calendars = new Calendars( this );
     resources = new Resources( this );
     tasks = new Tasks( this );
+    profiles = new WorkProfiles();
+    scenarios = new ArrayList<>();
 
     m_title = "";
     m_datetimeFormat = "EEE dd/MM/yyyy HH:mm";
@@ -182,17 +197,63 @@ public class Plan
   /************************************ getEarliestTaskStart *************************************/
   public DateTime getEarliestTaskStart()
   {
-    // TODO return start date-time of earliest starting plan task, or null if no tasks
-    DateTime earliest = null;
-    return earliest;
+    // return start date-time of earliest starting plan task, or null if no tasks
+    return tasks.getEarliestStart();
   }
 
   /************************************** getLatestTaskEnd ***************************************/
   public DateTime getLatestTaskEnd()
   {
-    // TODO return end date-time of latest ending plan task, or null if no tasks
-    DateTime latest = null;
-    return latest;
+    // return end date-time of latest ending plan task, or null if no tasks
+    return tasks.getLatestEnd();
+  }
+
+  /*************************************** getWorkProfiles ***************************************/
+  public WorkProfiles getWorkProfiles()
+  {
+    return profiles;
+  }
+
+  /**************************************** getWorkProfile ***************************************/
+  public WorkProfile getWorkProfile( Task task )
+  {
+    return getWorkProfile( task, UnaryOperator.identity() );
+  }
+
+  public WorkProfile getWorkProfile( Task task, UnaryOperator<Calendar> calendars )
+  {
+    // task works when plan calendar and every assigned resource work, within resource availability
+    var taskCalendars = new ArrayList<Calendar>();
+    taskCalendars.add( calendars.apply( m_calendar ) );
+    DateTime start = DateTime.MIN_VALUE;
+    DateTime end = DateTime.MAX_VALUE;
+
+    if ( task.getValue( Task.FIELD.Resources.ordinal() ) instanceof TaskResources taskResources )
+      for ( var assignment : taskResources.assignments() )
+        for ( var resource : resources.findByTag( assignment.tag() ) )
+        {
+          taskCalendars.add( calendars.apply( resource.getCalendar() == null ? m_calendar : resource.getCalendar() ) );
+          if ( resource.getStart().compareTo( start ) > 0 )
+            start = resource.getStart();
+          if ( resource.getEnd().compareTo( end ) < 0 )
+            end = resource.getEnd();
+        }
+
+    // tasks sharing the same crew share one cached profile
+    return profiles.intersection( start, end, taskCalendars );
+  }
+
+  /**************************************** getWorkProfile ***************************************/
+  public WorkProfile getWorkProfile( Resource resource )
+  {
+    return getWorkProfile( resource, UnaryOperator.identity() );
+  }
+
+  public WorkProfile getWorkProfile( Resource resource, UnaryOperator<Calendar> calendars )
+  {
+    // resource works when its calendar (or plan calendar if none) works, within its availability
+    var calendar = calendars.apply( resource.getCalendar() == null ? m_calendar : resource.getCalendar() );
+    return profiles.intersection( resource.getStart(), resource.getEnd(), List.of( calendar ) );
   }
 
   /************************************** getDefaultCalendar *************************************/
@@ -249,6 +310,47 @@ public class Plan
     m_title = title;
   }
 
+  /***************************************** getSchedule *****************************************/
+  public Schedule getSchedule()
+  {
+    // return results of latest scheduling, or null if not scheduled
+    return m_schedule;
+  }
+
+  /***************************************** setSchedule *****************************************/
+  public void setSchedule( Schedule schedule )
+  {
+    m_schedule = schedule;
+  }
+
+  /******************************************** fork *********************************************/
+  public Scenario fork( String name )
+  {
+    // create what-if scenario sharing this plan until scenario modifies tasks or calendars
+    var scenario = new Scenario( this, name );
+    scenarios.add( scenario );
+    return scenario;
+  }
+
+  /**************************************** getScenarios *****************************************/
+  public ArrayList<Scenario> getScenarios()
+  {
+    return scenarios;
+  }
+
+  /**************************************** getScheduler *****************************************/
+  public Scheduler getScheduler()
+  {
+    // return scheduler of latest scheduling, or null if edits should not reschedule
+    return m_scheduler;
+  }
+
+  /**************************************** setScheduler *****************************************/
+  public void setScheduler( Scheduler scheduler )
+  {
+    m_scheduler = scheduler;
+  }
+
   /*************************************** setDefaultStart ***************************************/
   public void setDefaultStart( DateTime start )
   {
@@ -0,0 +1,195 @@
+/**************************************************************************
+ *  Copyright (C) 2026 by Richard Crook                                   *
+ *  https://github.com/dazzle50/JPlannerFX                                *
+ *                                                                        *
+ *  This program is free software: you can redistribute it and/or modify  *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  This program is distributed in the hope that it will be useful,       *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with this program.  If not, see http://www.gnu.org/licenses/    *
+ **************************************************************************/
+
+package rjc.jplanner.plan;
+
+import java.util.IdentityHashMap;
+
+import rjc.jplanner.plan.calenders.Calendar;
+import rjc.jplanner.plan.calenders.CompiledCalendar;
+import rjc.jplanner.plan.schedule.Schedule;
+import rjc.jplanner.plan.schedule.Scheduler;
+import rjc.jplanner.plan.tasks.CompiledNetwork;
+import rjc.jplanner.plan.tasks.Predecessors;
+import rjc.jplanner.plan.tasks.Task;
+import rjc.jplanner.plan.tasks.TaskResources;
+
+/*************************************************************************************************/
+/************ What-if fork of a plan, copying only the tasks & calendars it modifies *************/
+/*************************************************************************************************/
+
+public class Scenario
+{
+  private String                              m_name;      // name of scenario
+  private Plan                                m_plan;      // parent plan, unmodified parts are shared
+  private IdentityHashMap<Task, Task>         m_tasks;     // copies of modified tasks keyed by parent task
+  private IdentityHashMap<Calendar, Calendar> m_calendars; // copies of modified calendars keyed by parent calendar
+  private Schedule                            m_schedule;  // results of latest scheduling, or null
+  private CompiledNetwork                     m_network;   // compiled network of scenario tasks, or null
+
+  /**************************************** constructor ******************************************/
+  public Scenario( Plan plan, String name )
+  {
+    // scenario initially shares everything with parent plan
+    if ( plan == null )
+      throw new NullPointerException( "Plan must not be null" );
+    m_plan = plan;
+    m_name = name;
+    m_tasks = new IdentityHashMap<>();
+    m_calendars = new IdentityHashMap<>();
+  }
+
+  /****************************************** toString *******************************************/
+  @Override
+  public String toString()
+  {
+    return m_name;
+  }
+
+  /******************************************* getName *******************************************/
+  public String getName()
+  {
+    return m_name;
+  }
+
+  /******************************************* getPlan *******************************************/
+  public Plan getPlan()
+  {
+    return m_plan;
+  }
+
+  /******************************************* getTask *******************************************/
+  public Task getTask( int index )
+  {
+    // return scenario copy of task if modified, otherwise the shared parent task
+    var task = m_plan.getTasks().get( index );
+    return m_tasks.getOrDefault( task, task );
+  }
+
+  /*************************************** isTaskModified ****************************************/
+  public boolean isTaskModified( int index )
+  {
+    return m_tasks.containsKey( m_plan.getTasks().get( index ) );
+  }
+
+  /*************************************** getModifiedCount **************************************/
+  public int getModifiedCount()
+  {
+    // return number of tasks & calendars copied by this scenario
+    return m_tasks.size() + m_calendars.size();
+  }
+
+  /****************************************** setValue *******************************************/
+  public String setValue( int taskIndex, int field, Object newValue )
+  {
+    // validate against parent task, so references resolve to parent tasks, then commit to scenario copy
+    var original = m_plan.getTasks().get( taskIndex );
+    if ( newValue != null )
+    {
+      try
+      {
+        if ( field == Task.FIELD.Predecessors.ordinal() )
+          newValue = Predecessors.parse( newValue.toString(), m_plan.getTasks() );
+        else if ( field == Task.FIELD.Resources.ordinal() )
+          newValue = TaskResources.parse( newValue.toString(), m_plan.getResources() );
+      }
+      catch ( IllegalArgumentException exception )
+      {
+        return exception.getMessage();
+      }
+    }
+
+    if ( original.isSummary() && ( field == Task.FIELD.Duration.ordinal() || field == Task.FIELD.Start.ordinal()
+        || field == Task.FIELD.End.ordinal() || field == Task.FIELD.Work.ordinal() ) )
+      return "Summary " + Task.FIELD.values()[field] + " is rolled up from sub-tasks";
+
+    // predecessors must not be circular through this scenario's own modified dependencies
+    if ( newValue instanceof Predecessors predecessors && isCircular( original, predecessors ) )
+      return "Circular reference to self";
+    String error = original.setValue( field, newValue, false );
+    if ( error != null && !( newValue instanceof Predecessors ) )
+      return error;
+
+    m_tasks.computeIfAbsent( original, Task::new ).setValue( field, newValue, true );
+    m_schedule = null;
+    return null;
+  }
+
+  /***************************************** isCircular ******************************************/
+  private boolean isCircular( Task task, Predecessors predecessors )
+  {
+    // search successor edges of scenario network, which has this scenario's own modified dependencies
+    var network = getNetwork( getCalendar( m_plan.getDefaultCalendar() ).getCompiled() );
+    return network.isCircular( network.getRow( task ), predecessors );
+  }
+
+  /***************************************** getNetwork ******************************************/
+  public CompiledNetwork getNetwork( CompiledCalendar calendar )
+  {
+    // return compiled network of scenario tasks, only recompiling rows modified since last returned
+    if ( m_network == null )
+      m_network = new CompiledNetwork( m_plan.getTasks(), this::getTask, calendar );
+    else
+      m_network.update( m_plan.getTasks(), this::getTask, calendar );
+    return m_network;
+  }
+
+  /***************************************** revertTask ******************************************/
+  public void revertTask( int taskIndex )
+  {
+    // drop scenario copy so task is shared with parent plan again
+    if ( m_tasks.remove( m_plan.getTasks().get( taskIndex ) ) != null )
+      m_schedule = null;
+  }
+
+  /***************************************** getCalendar *****************************************/
+  public Calendar getCalendar( Calendar calendar )
+  {
+    // return scenario copy of calendar if modified, otherwise the shared parent calendar
+    return m_calendars.getOrDefault( calendar, calendar );
+  }
+
+  /**************************************** modifyCalendar ***************************************/
+  public Calendar modifyCalendar( Calendar calendar )
+  {
+    // return scenario copy of calendar for editing, copying on first modification
+    m_schedule = null;
+    return m_calendars.computeIfAbsent( calendar, Calendar::new );
+  }
+
+  /******************************************* schedule ******************************************/
+  public Schedule schedule()
+  {
+    // schedule scenario without changing parent plan tasks
+    return new Scheduler( this ).schedule();
+  }
+
+  /***************************************** getSchedule *****************************************/
+  public Schedule getSchedule()
+  {
+    // return results of latest scheduling, or null if not scheduled since last modification
+    return m_schedule;
+  }
+
+  /***************************************** setSchedule *****************************************/
+  public void setSchedule( Schedule schedule )
+  {
+    m_schedule = schedule;
+  }
+
+}
@@ -22,10 +22,13 @@ package rjc.jplanner.plan;
 /********************************** Quantity of time with units **********************************/
 /*************************************************************************************************/
 
-public class TimeSpan
+public final class TimeSpan
 {
-  private double m_num;  // number of unit periods (max 2 decimal places, except only whole seconds)
-  private Unit   m_unit; // type of periods (first letter shown in string version)
+  private final long                m_hundredths; // hundredths of unit periods (whole seconds only for seconds)
+  private final Unit                m_unit;       // type of periods (first letter shown in string version)
+
+  private static final int          CACHE_MAX = 100; // whole numbers interned from zero up to
+  private static final TimeSpan[][] CACHE;           // interned whole number time-spans by unit
 
   public enum Unit // duration units with their single-character abbreviations
   {
@@ -52,55 +55,68 @@ public class TimeSpan
     }
   }
 
-  /**************************************** constructor ******************************************/
-  public TimeSpan()
+  static
   {
-    // construct default time-span (one day)
-    m_num = 1.0;
-    m_unit = Unit.DAYS;
+    // intern whole number time-spans of every unit from zero to cache maximum
+    CACHE = new TimeSpan[Unit.values().length][CACHE_MAX + 1];
+    for ( var unit : Unit.values() )
+      for ( int num = 0; num <= CACHE_MAX; num++ )
+        CACHE[unit.ordinal()][num] = new TimeSpan( num * 100L, unit );
   }
 
   /**************************************** constructor ******************************************/
-  public TimeSpan( String str )
+  private TimeSpan( long hundredths, Unit unit )
+  {
+    // constructor is private to force use of static factories, which share interned values
+    m_hundredths = hundredths;
+    m_unit = unit;
+  }
+
+  /**************************************** ofHundredths *****************************************/
+  public static TimeSpan ofHundredths( long hundredths, Unit unit )
   {
-    // construct time-span from string, start with default
-    this();
+    // return time-span for hundredths of unit, rounding to whole seconds for seconds
+    if ( unit == null )
+      throw new IllegalArgumentException( "Time-span unit cannot be null" );
+    if ( unit == Unit.SECONDS )
+      hundredths = Math.round( hundredths / 100.0 ) * 100L;
 
-    // if string is null, don't do anything more
+    // use interned value for common whole numbers
+    if ( hundredths >= 0 && hundredths <= CACHE_MAX * 100 && hundredths % 100 == 0 )
+      return CACHE[unit.ordinal()][(int) ( hundredths / 100 )];
+    return new TimeSpan( hundredths, unit );
+  }
+
+  /********************************************* of **********************************************/
+  public static TimeSpan of( double num, Unit unit )
+  {
+    // return time-span from number, rounding to two decimal places
+    return ofHundredths( Math.round( num * 100.0 ), unit );
+  }
+
+  /******************************************** parse ********************************************/
+  public static TimeSpan parse( String str )
+  {
+    // return time-span from string, default is one day
+    var units = Unit.DAYS;
     if ( str == null )
-      return;
+      return ofHundredths( 100L, units );
 
-    // if string with white-spaces removed is zero length, don't do anything more
+    // if string with white-spaces removed is zero length, return default
     str = str.replaceAll( "\\s+", "" );
     if ( str.isEmpty() )
-      return;
+      return ofHundredths( 100L, units );
 
     // set units if last character matches units first character
-    char lastchr = str.charAt( str.length() - 1 );
-    Unit units = Unit.fromChar( lastchr );
-    if ( units != null )
+    Unit unit = Unit.fromChar( str.charAt( str.length() - 1 ) );
+    if ( unit != null )
     {
-      m_unit = units;
+      units = unit;
       str = str.substring( 0, str.length() - 1 );
     }
 
     // set number from remainder of string but THROWS EXCEPTION IF PARSING FAILS
-    double num = Double.parseDouble( "0" + str );
-    if ( m_unit == Unit.SECONDS )
-      m_num = Math.rint( num );
-    else
-      m_num = Math.rint( num * 100.0 ) / 100.0;
-  }
-
-  /**************************************** constructor ******************************************/
-  public TimeSpan( double num, Unit unit )
-  {
-    // construct time-span from parameters, rounding number based on units
-    m_unit = unit;
-    if ( unit == Unit.SECONDS )
-      m_num = Math.rint( num );
-    else
-      m_num = Math.rint( num * 100.0 ) / 100.0;
+    return of( Double.parseDouble( "0" + str ), units );
   }
 
   /**************************************** toStringLong *****************************************/
@@ -108,7 +124,7 @@ public class TimeSpan
   {
     // return string version of time-span, e.g. "1 Month" or "6 Seconds"
     var units = m_unit.name().charAt( 0 ) + m_unit.name().substring( 1 ).toLowerCase();
-    if ( m_num == 1.0 )
+    if ( m_hundredths == 100 )
       units = units.substring( 0, units.length() - 1 ); // singular form if number is 1
     return numberString() + " " + units;
   }
@@ -123,17 +139,14 @@ public class TimeSpan
 
   private String numberString()
   {
-    // return number as string, rounded to 2 decimal places except for seconds
-    if ( m_unit == Unit.SECONDS )
-      return Integer.toString( (int) m_num ); // no decimal places for seconds
-
-    // when not seconds, convert to fixed-point integer (e.g. 1.23 -> 123)
-    int fixed = (int) Math.round( m_num * 100 );
-    int whole = fixed / 100;
-    int frac = fixed % 100;
+    // return number as string, with up to 2 decimal places (seconds are always whole)
+    long whole = m_hundredths / 100;
+    int frac = (int) Math.abs( m_hundredths % 100 );
 
     // build string manually
     StringBuilder sb = new StringBuilder( 8 );
+    if ( m_hundredths < 0 && whole == 0 )
+      sb.append( '-' );
     sb.append( whole );
 
     if ( frac != 0 )
@@ -154,20 +167,18 @@ public class TimeSpan
     return m_unit;
   }
 
-  /******************************************* setUnit *******************************************/
-  public void setUnit( Unit units )
-  {
-    // set time-span units
-    m_unit = units;
-    if ( units == Unit.SECONDS )
-      m_num = Math.rint( m_num );
-  }
-
   /****************************************** getNumber ******************************************/
   public double getNumber()
   {
     // return time-span number
-    return m_num;
+    return m_hundredths / 100.0;
+  }
+
+  /**************************************** getHundredths ****************************************/
+  public long getHundredths()
+  {
+    // return time-span number as exact hundredths
+    return m_hundredths;
   }
 
   /******************************************* equals ********************************************/
@@ -176,9 +187,17 @@ public class TimeSpan
   {
     // return true if this time-span and other time-span are same
     if ( other instanceof TimeSpan ts )
-      return m_unit == ts.m_unit && Math.abs( m_num - ts.m_num ) < 0.001;
+      return m_unit == ts.m_unit && m_hundredths == ts.m_hundredths;
 
     return false;
   }
 
+  /****************************************** hashCode *******************************************/
+  @Override
+  public int hashCode()
+  {
+    // consistent with equals
+    return Long.hashCode( m_hundredths ) * 31 + m_unit.ordinal();
+  }
+
 }
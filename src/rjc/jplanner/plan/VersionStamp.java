@@ -0,0 +1,51 @@
+/**************************************************************************
+ *  Copyright (C) 2026 by Richard Crook                                   *
+ *  https://github.com/dazzle50/JPlannerFX                                *
+ *                                                                        *
+ *  This program is free software: you can redistribute it and/or modify  *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  This program is distributed in the hope that it will be useful,       *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with this program.  If not, see http://www.gnu.org/licenses/    *
+ **************************************************************************/
+
+package rjc.jplanner.plan;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/*************************************************************************************************/
+/************** Source of ever increasing version stamps for edits to plan contents **************/
+/*************************************************************************************************/
+
+public final class VersionStamp
+{
+  private static final AtomicLong LATEST = new AtomicLong(); // most recently issued version stamp
+
+  /**************************************** constructor ******************************************/
+  private VersionStamp()
+  {
+    // static methods only, so no instances
+  }
+
+  /******************************************** next *********************************************/
+  public static long next()
+  {
+    // return new version stamp, greater than all issued before
+    return LATEST.incrementAndGet();
+  }
+
+  /******************************************* latest ********************************************/
+  public static long latest()
+  {
+    // return most recently issued version stamp, changes whenever anything has been edited
+    return LATEST.get();
+  }
+
+}
@@ -20,11 +20,16 @@ package rjc.jplanner.plan.calenders;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Map;
 
+import rjc.jplanner.plan.TimeSpan;
+import rjc.jplanner.plan.TimeSpan.Unit;
+import rjc.jplanner.plan.VersionStamp;
 import rjc.jplanner.plan.days.Day;
 import rjc.table.Utils;
 import rjc.table.data.types.Date;
+import rjc.table.data.types.DateTime;
+import rjc.table.data.types.Time;
 
 /*************************************************************************************************/
 /********************************* Single calendar for planning **********************************/
@@ -32,16 +37,24 @@ import rjc.table.data.types.Date;
 
 public class Calendar
 {
-  private String             m_name;        // name of calendar
-  private Date               m_cycleAnchor; // anchor date of calendar cycle
-  private ArrayList<Day>     m_normal;      // normal basic cycle days
-  private HashMap<Date, Day> m_exceptions;  // exceptions override normal days
+  private String                    m_name;        // name of calendar
+  private Date                      m_cycleAnchor; // anchor date of calendar cycle
+  private ArrayList<Day>            m_normal;      // normal basic cycle days, never changed once set so can be shared
+  private CalendarExceptions        m_exceptions;  // exceptions override normal days
+  private long                      m_version;     // version stamp of last change to this calendar
+
+  private volatile CompiledCalendar m_compiled;    // latest compiled snapshot, rebuilt when version changes
+  private volatile long             m_checkedAt;   // latest version stamp when snapshot last checked current
 
   public enum FIELD
   {
     Name, Anchor, Exceptions, Cycle, Normal
   }
 
+  public record Span( DateTime start, DateTime end )
+  {
+  }
+
   /**************************************** constructor ******************************************/
   public Calendar( Day day )
   {
@@ -50,7 +63,8 @@ public class Calendar
     m_cycleAnchor = Date.of( 2000, 1, 1 );
     m_normal = new ArrayList<>();
     m_normal.add( day );
-    m_exceptions = new HashMap<>();
+    m_exceptions = new CalendarExceptions();
+    m_version = VersionStamp.next();
   }
 
   /**************************************** constructor ******************************************/
@@ -60,14 +74,62 @@ public class Calendar
     m_name = name;
     m_cycleAnchor = date;
     m_normal = new ArrayList<>( Arrays.asList( normal ) );
-    m_exceptions = new HashMap<>();
+    m_exceptions = new CalendarExceptions();
+    m_version = VersionStamp.next();
+  }
+
+  /**************************************** constructor ******************************************/
+  public Calendar( Calendar calendar )
+  {
+    // construct independent copy sharing the unchanged normal days and compiled snapshot until edited
+    m_name = calendar.m_name;
+    m_cycleAnchor = calendar.m_cycleAnchor;
+    m_normal = calendar.m_normal;
+    m_exceptions = new CalendarExceptions( calendar.m_exceptions );
+    m_version = calendar.m_version;
+    m_compiled = calendar.m_compiled;
   }
 
   /**************************************** addException *****************************************/
   public void addException( int day, int month, int year, Day daytype )
   {
     // add exception to this calendar
-    m_exceptions.put( Date.of( year, month, day ), daytype );
+    addException( Date.of( year, month, day ), daytype );
+  }
+
+  public void addException( Date date, Day daytype )
+  {
+    // add exception to this calendar, replacing any existing exception on same date
+    m_exceptions.put( date.getEpochDay(), daytype );
+    m_version = VersionStamp.next();
+  }
+
+  /*************************************** addExceptions *****************************************/
+  public void addExceptions( Map<Date, Day> exceptions )
+  {
+    // bulk add exceptions to this calendar with a single sort and merge
+    int count = exceptions.size();
+    int[] epochDays = new int[count];
+    Day[] days = new Day[count];
+    int index = 0;
+    for ( var exception : exceptions.entrySet() )
+    {
+      epochDays[index] = exception.getKey().getEpochDay();
+      days[index++] = exception.getValue();
+    }
+
+    m_exceptions.putAll( epochDays, days );
+    m_version = VersionStamp.next();
+  }
+
+  /************************************** removeException ****************************************/
+  public boolean removeException( Date date )
+  {
+    // remove exception from this calendar, returning true if there was one
+    boolean removed = m_exceptions.remove( date.getEpochDay() );
+    if ( removed )
+      m_version = VersionStamp.next();
+    return removed;
   }
 
   /****************************************** toString *******************************************/
@@ -100,10 +162,60 @@ public class Calendar
     return m_normal;
   }
 
-  /**************************************** getExceptions ****************************************/
-  public HashMap<Date, Day> getExceptions()
+  /************************************** getExceptionCount **************************************/
+  public int getExceptionCount()
+  {
+    return m_exceptions.size();
+  }
+
+  /************************************** getExceptionDate ***************************************/
+  public Date getExceptionDate( int index )
   {
-    return m_exceptions;
+    // return date of exception at index, exceptions are in date order
+    return toDate( m_exceptions.epochDay( index ) );
+  }
+
+  /*************************************** getExceptionDay ***************************************/
+  public Day getExceptionDay( int index )
+  {
+    // return day-type of exception at index, exceptions are in date order
+    return m_exceptions.day( index );
+  }
+
+  /**************************************** getException *****************************************/
+  public Day getException( Date date )
+  {
+    // return exception day-type for date, or null if no exception
+    return m_exceptions.get( date.getEpochDay() );
+  }
+
+  /*************************************** exceptionsFrom ****************************************/
+  public int exceptionsFrom( Date date )
+  {
+    // return index of first exception on or after date (exception count if none)
+    return m_exceptions.firstAtOrAfter( date.getEpochDay() );
+  }
+
+  /*************************************** countExceptions ***************************************/
+  public int countExceptions( Date from, Date to )
+  {
+    // return number of exceptions between the two dates inclusive
+    return m_exceptions.count( from.getEpochDay(), to.getEpochDay() );
+  }
+
+  /**************************************** nextException ****************************************/
+  public Date nextException( Date date )
+  {
+    // return date of first exception after date, or null if none
+    int index = m_exceptions.firstAtOrAfter( date.getEpochDay() + 1 );
+    return index < m_exceptions.size() ? toDate( m_exceptions.epochDay( index ) ) : null;
+  }
+
+  /******************************************* usesDay *******************************************/
+  public boolean usesDay( Day day )
+  {
+    // return true if day-type is used by normal cycle or any exception
+    return m_normal.contains( day ) || m_exceptions.uses( day );
   }
 
   /******************************************* getValue ******************************************/
@@ -151,7 +263,10 @@ public class Calendar
         if ( newName.length() < 1 || newName.length() > 40 )
           return "Name length not between 1 and 40 characters";
         if ( commit )
+        {
           m_name = newName;
+          m_version = VersionStamp.next();
+        }
         return null;
 
       case Anchor:
@@ -159,7 +274,10 @@ public class Calendar
         if ( newValue instanceof Date date )
         {
           if ( commit )
+          {
             m_cycleAnchor = date;
+            m_version = VersionStamp.next();
+          }
           return null;
         }
         return "Not date: " + Utils.objectsString( newValue );
@@ -187,7 +305,10 @@ public class Calendar
           if ( newNormal.isEmpty() || newNormal.size() > 99 )
             return "Array size not between 1 and 99";
           if ( commit )
-            m_normal = newNormal;
+          {
+            m_normal = new ArrayList<>( newNormal );
+            m_version = VersionStamp.next();
+          }
           return null;
         }
         catch ( Exception exception )
@@ -202,7 +323,12 @@ public class Calendar
         if ( newValue instanceof Day day )
         {
           if ( commit )
-            m_normal.set( normal, day );
+          {
+            var newNormal = new ArrayList<>( m_normal );
+            newNormal.set( normal, day );
+            m_normal = newNormal;
+            m_version = VersionStamp.next();
+          }
           return null;
         }
         return "Not day-type: " + Utils.objectsString( newValue );
@@ -210,18 +336,63 @@ public class Calendar
     }
   }
 
+  /***************************************** getVersion ******************************************/
+  public long getVersion()
+  {
+    // return latest version stamp of this calendar and the day-types it references
+    long version = Math.max( m_version, m_exceptions.dayTypesVersion() );
+    for ( var day : m_normal )
+      version = Math.max( version, day.getVersion() );
+    return version;
+  }
+
+  /***************************************** getCompiled *****************************************/
+  public CompiledCalendar getCompiled()
+  {
+    // nothing anywhere changed since snapshot last checked so it must still be current
+    long latest = VersionStamp.latest();
+    var compiled = m_compiled;
+    if ( compiled != null && m_checkedAt == latest )
+      return compiled;
+
+    // rebuild immutable snapshot only if this calendar or its day-types have changed
+    long version = getVersion();
+    if ( compiled == null || compiled.getVersion() != version )
+    {
+      compiled = new CompiledCalendar( version, m_cycleAnchor.getEpochDay(), m_normal, m_exceptions );
+      m_compiled = compiled;
+    }
+    m_checkedAt = latest;
+    return compiled;
+  }
+
   /***************************************** isWorking *******************************************/
   public boolean isWorking( Date date )
   {
     // return whether date is working or not
-    return getDay( date ).isWorking();
+    return getCompiled().isWorking( date.getEpochDay() );
+  }
+
+  /************************************** countWorkingDays ***************************************/
+  public int countWorkingDays( Date from, Date to )
+  {
+    // return number of working days between the two dates inclusive
+    return getCompiled().countWorkingDays( from.getEpochDay(), to.getEpochDay() );
+  }
+
+  /*************************************** nextWorkingDay ****************************************/
+  public Date nextWorkingDay( Date date )
+  {
+    // return first working date on or after specified, or null if calendar never works again
+    int epochDay = getCompiled().nextWorkingDay( date.getEpochDay() );
+    return epochDay == Integer.MAX_VALUE ? null : toDate( epochDay );
   }
 
   /******************************************* getDay ********************************************/
   public Day getDay( Date date )
   {
     // if exception exists return it, otherwise return normal cycle day
-    Day day = m_exceptions.get( date );
+    Day day = m_exceptions.get( date.getEpochDay() );
     if ( day != null )
       return day;
 
@@ -231,4 +402,109 @@ public class Calendar
 
     return m_normal.get( normal );
   }
+
+  /****************************************** toWorkMS *******************************************/
+  public long toWorkMS( TimeSpan span )
+  {
+    // return working milliseconds equivalent to time-span using day-type work equivalence
+    return getCompiled().toWorkMS( span );
+  }
+
+  public long toWorkMS( long hundredths, Unit unit )
+  {
+    return getCompiled().toWorkMS( hundredths, unit );
+  }
+
+  /***************************************** toTimeSpan ******************************************/
+  public TimeSpan toTimeSpan( long workMS, Unit unit )
+  {
+    // return time-span in specified unit equivalent to working milliseconds
+    return getCompiled().toTimeSpan( workMS, unit );
+  }
+
+  /***************************************** workBetween *****************************************/
+  public long workBetween( DateTime from, DateTime to )
+  {
+    // return worked milliseconds between two date-times (negative if to is before from)
+    return getCompiled().workBetween( from.toMilliseconds(), to.toMilliseconds() );
+  }
+
+  public long workBetween( long fromMS, long toMS )
+  {
+    return getCompiled().workBetween( fromMS, toMS );
+  }
+
+  /******************************************* addWork *******************************************/
+  public DateTime addWork( DateTime start, long work )
+  {
+    // return earliest date-time by which specified worked milliseconds after start are done
+    return toDateTime( getCompiled().addWork( start.toMilliseconds(), work ) );
+  }
+
+  public long addWork( long startMS, long work )
+  {
+    return getCompiled().addWork( startMS, work );
+  }
+
+  /**************************************** subtractWork *****************************************/
+  public DateTime subtractWork( DateTime end, long work )
+  {
+    // return latest date-time from which specified worked milliseconds are done by end
+    return toDateTime( getCompiled().subtractWork( end.toMilliseconds(), work ) );
+  }
+
+  public long subtractWork( long endMS, long work )
+  {
+    return getCompiled().subtractWork( endMS, work );
+  }
+
+  /************************************* nextWorkingInstant **************************************/
+  public DateTime nextWorkingInstant( DateTime dt )
+  {
+    // return earliest date-time at or after specified when calendar is working
+    return toDateTime( getCompiled().nextWorkingInstant( dt.toMilliseconds() ) );
+  }
+
+  public long nextWorkingInstant( long ms )
+  {
+    return getCompiled().nextWorkingInstant( ms );
+  }
+
+  /*********************************** previousWorkingInstant ************************************/
+  public DateTime previousWorkingInstant( DateTime dt )
+  {
+    // return latest date-time at or before specified when calendar was working up to
+    return toDateTime( getCompiled().previousWorkingInstant( dt.toMilliseconds() ) );
+  }
+
+  public long previousWorkingInstant( long ms )
+  {
+    return getCompiled().previousWorkingInstant( ms );
+  }
+
+  /************************************** nonWorkingSpans ****************************************/
+  public ArrayList<Span> nonWorkingSpans( DateTime from, DateTime to )
+  {
+    // return spans of whole non-working days between the two date-times
+    return getCompiled().nonWorkingSpans( from.toMilliseconds(), to.toMilliseconds() );
+  }
+
+  /***************************************** toDateTime ******************************************/
+  private static DateTime toDateTime( long ms )
+  {
+    // return date-time for milliseconds, mapping beyond-calendar markers to date-time limits
+    if ( ms == Long.MAX_VALUE )
+      return DateTime.MAX_VALUE;
+    if ( ms == Long.MIN_VALUE )
+      return DateTime.MIN_VALUE;
+    return DateTime.ofMilliseconds( ms );
+  }
+
+  /******************************************* toDate ********************************************/
+  private static Date toDate( int epochDay )
+  {
+    // return date for epoch-day
+    return DateTime.ofMilliseconds( epochDay * (long) Time.MILLIS_PER_DAY ).getDate();
+  }
+
 }
@@ -0,0 +1,236 @@
+/**************************************************************************
+ *  Copyright (C) 2026 by Richard Crook                                   *
+ *  https://github.com/dazzle50/JPlannerFX                                *
+ *                                                                        *
+ *  This program is free software: you can redistribute it and/or modify  *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  This program is distributed in the hope that it will be useful,       *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with this program.  If not, see http://www.gnu.org/licenses/    *
+ **************************************************************************/
+
+package rjc.jplanner.plan.calenders;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import rjc.jplanner.plan.days.Day;
+
+/*************************************************************************************************/
+/************** Calendar exceptions held as sorted epoch-days with day-type indexes **************/
+/*************************************************************************************************/
+
+class CalendarExceptions
+{
+  private int[]          m_epochDays; // sorted epoch-days of exceptions
+  private int[]          m_types;     // index into day-types for each exception
+  private ArrayList<Day> m_dayTypes;  // distinct day-types referenced by exceptions
+  private int            m_size;      // number of exceptions
+
+  /**************************************** constructor ******************************************/
+  public CalendarExceptions()
+  {
+    // construct empty exception index
+    m_epochDays = new int[0];
+    m_types = new int[0];
+    m_dayTypes = new ArrayList<>();
+  }
+
+  /**************************************** constructor ******************************************/
+  public CalendarExceptions( CalendarExceptions exceptions )
+  {
+    // construct independent copy of another exception index
+    m_epochDays = Arrays.copyOf( exceptions.m_epochDays, exceptions.m_size );
+    m_types = Arrays.copyOf( exceptions.m_types, exceptions.m_size );
+    m_dayTypes = new ArrayList<>( exceptions.m_dayTypes );
+    m_size = exceptions.m_size;
+  }
+
+  /******************************************** size *********************************************/
+  public int size()
+  {
+    return m_size;
+  }
+
+  /****************************************** epochDay *******************************************/
+  public int epochDay( int index )
+  {
+    // return epoch-day of exception at index (in date order)
+    return m_epochDays[index];
+  }
+
+  /********************************************* day *********************************************/
+  public Day day( int index )
+  {
+    // return day-type of exception at index (in date order)
+    return m_dayTypes.get( m_types[index] );
+  }
+
+  /********************************************* get *********************************************/
+  public Day get( int epochDay )
+  {
+    // return exception day-type for epoch-day, or null if no exception
+    int index = Arrays.binarySearch( m_epochDays, 0, m_size, epochDay );
+    return index < 0 ? null : day( index );
+  }
+
+  /*************************************** firstAtOrAfter ****************************************/
+  public int firstAtOrAfter( int epochDay )
+  {
+    // return index of first exception on or after epoch-day (size if none)
+    int index = Arrays.binarySearch( m_epochDays, 0, m_size, epochDay );
+    return index < 0 ? -index - 1 : index;
+  }
+
+  /******************************************** count ********************************************/
+  public int count( int fromDay, int toDay )
+  {
+    // return number of exceptions between the two epoch-days inclusive
+    if ( toDay < fromDay )
+      return 0;
+    return firstAtOrAfter( toDay + 1 ) - firstAtOrAfter( fromDay );
+  }
+
+  /********************************************* put *********************************************/
+  public void put( int epochDay, Day day )
+  {
+    // add or replace single exception keeping epoch-days sorted
+    int index = Arrays.binarySearch( m_epochDays, 0, m_size, epochDay );
+    if ( index >= 0 )
+    {
+      m_types[index] = typeIndex( day );
+      return;
+    }
+
+    index = -index - 1;
+    if ( m_size == m_epochDays.length )
+    {
+      int capacity = Math.max( 8, m_size + ( m_size >> 1 ) );
+      m_epochDays = Arrays.copyOf( m_epochDays, capacity );
+      m_types = Arrays.copyOf( m_types, capacity );
+    }
+
+    System.arraycopy( m_epochDays, index, m_epochDays, index + 1, m_size - index );
+    System.arraycopy( m_types, index, m_types, index + 1, m_size - index );
+    m_epochDays[index] = epochDay;
+    m_types[index] = typeIndex( day );
+    m_size++;
+  }
+
+  /******************************************* putAll ********************************************/
+  public void putAll( int[] epochDays, Day[] days )
+  {
+    // add or replace many exceptions with a single sort and merge, later duplicates win
+    int count = epochDays.length;
+    if ( count != days.length )
+      throw new IllegalArgumentException( "Epoch-days and day-types lengths differ " + count + " " + days.length );
+
+    // pack epoch-day and original position into longs so a primitive sort keeps duplicates in order
+    long[] order = new long[count];
+    for ( int index = 0; index < count; index++ )
+      order[index] = ( (long) epochDays[index] << 32 ) | index;
+    Arrays.sort( order );
+
+    // merge existing and new exceptions into fresh arrays
+    int[] mergedDays = new int[m_size + count];
+    int[] mergedTypes = new int[m_size + count];
+    int size = 0;
+    int existing = 0;
+    for ( int next = 0; next < count; next++ )
+    {
+      int epochDay = (int) ( order[next] >> 32 );
+      if ( next + 1 < count && (int) ( order[next + 1] >> 32 ) == epochDay )
+        continue; // later duplicate wins
+
+      while ( existing < m_size && m_epochDays[existing] < epochDay )
+      {
+        mergedDays[size] = m_epochDays[existing];
+        mergedTypes[size++] = m_types[existing++];
+      }
+      if ( existing < m_size && m_epochDays[existing] == epochDay )
+        existing++; // new exception replaces existing
+
+      mergedDays[size] = epochDay;
+      mergedTypes[size++] = typeIndex( days[(int) order[next]] );
+    }
+    while ( existing < m_size )
+    {
+      mergedDays[size] = m_epochDays[existing];
+      mergedTypes[size++] = m_types[existing++];
+    }
+
+    m_epochDays = mergedDays;
+    m_types = mergedTypes;
+    m_size = size;
+  }
+
+  /******************************************* remove ********************************************/
+  public boolean remove( int epochDay )
+  {
+    // remove exception for epoch-day, returning true if there was one
+    int index = Arrays.binarySearch( m_epochDays, 0, m_size, epochDay );
+    if ( index < 0 )
+      return false;
+
+    System.arraycopy( m_epochDays, index + 1, m_epochDays, index, m_size - index - 1 );
+    System.arraycopy( m_types, index + 1, m_types, index, m_size - index - 1 );
+    m_size--;
+    return true;
+  }
+
+  /******************************************** uses *********************************************/
+  public boolean uses( Day day )
+  {
+    // return true if any exception uses the day-type
+    int type = m_dayTypes.indexOf( day );
+    if ( type < 0 )
+      return false;
+
+    for ( int index = 0; index < m_size; index++ )
+      if ( m_types[index] == type )
+        return true;
+
+    return false;
+  }
+
+  /*************************************** dayTypesVersion ***************************************/
+  public long dayTypesVersion()
+  {
+    // return latest version stamp of the distinct day-types referenced by exceptions
+    long version = 0L;
+    for ( var day : m_dayTypes )
+      version = Math.max( version, day.getVersion() );
+    return version;
+  }
+
+  /***************************************** copyDays ********************************************/
+  public int[] copyDays()
+  {
+    // return exact-size copy of sorted exception epoch-days
+    return Arrays.copyOf( m_epochDays, m_size );
+  }
+
+  /***************************************** typeIndex *******************************************/
+  private int typeIndex( Day day )
+  {
+    // return index of day-type in distinct day-types list, adding if not already present
+    if ( day == null )
+      throw new NullPointerException( "Exception day-type must not be null" );
+
+    int type = m_dayTypes.indexOf( day );
+    if ( type < 0 )
+    {
+      type = m_dayTypes.size();
+      m_dayTypes.add( day );
+    }
+    return type;
+  }
+
+}
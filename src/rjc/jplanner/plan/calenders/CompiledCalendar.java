@@ -0,0 +1,450 @@
+/**************************************************************************
+ *  Copyright (C) 2026 by Richard Crook                                   *
+ *  https://github.com/dazzle50/JPlannerFX                                *
+ *                                                                        *
+ *  This program is free software: you can redistribute it and/or modify  *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  This program is distributed in the hope that it will be useful,       *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with this program.  If not, see http://www.gnu.org/licenses/    *
+ **************************************************************************/
+
+package rjc.jplanner.plan.calenders;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import rjc.jplanner.plan.TimeSpan;
+import rjc.jplanner.plan.TimeSpan.Unit;
+import rjc.jplanner.plan.calenders.Calendar.Span;
+import rjc.jplanner.plan.days.CompiledDay;
+import rjc.jplanner.plan.days.Day;
+import rjc.table.data.types.DateTime;
+import rjc.table.data.types.Time;
+
+/*************************************************************************************************/
+/******************* Immutable primitive snapshot of a calendar for fast lookup ******************/
+/*************************************************************************************************/
+
+public final class CompiledCalendar
+{
+  private final long           m_version;    // version stamp of calendar and day-types when compiled
+  private final int            m_anchor;     // epoch-day of calendar cycle anchor
+  private final CompiledDay[]  m_normals;    // normal cycle day-types
+  private final long[]         m_cycleWork;  // cumulative worked milliseconds before each normal day (plus total)
+  private final int[]          m_cycleRuns;  // run-length of days in same working state from each normal day
+  private final int[]          m_excDays;    // sorted epoch-days of exceptions
+  private final CompiledDay[]  m_excTypes;   // exception day-types in same order
+  private final long[]         m_excWork;    // cumulative exception work correction before each exception (plus total)
+  private final WorkConversion m_conversion; // time-span to working milliseconds conversion, null if derived
+
+  private final ConcurrentHashMap<Integer, WorkingYear> m_years;    // lazily built working-day bitsets by year
+  private volatile WorkingYear                          m_lastYear; // most recently used year bitset
+
+  private static final long   MS_PER_DAY = Time.MILLIS_PER_DAY;
+
+  /**************************************** constructor ******************************************/
+  CompiledCalendar( long version, int anchor, List<Day> normals, CalendarExceptions exceptions )
+  {
+    // snapshot of calendar normal cycle and exceptions
+    this( version, anchor, compiled( normals ), exceptions.copyDays(), compiled( exceptions ), normals );
+  }
+
+  /**************************************** constructor ******************************************/
+  CompiledCalendar( int anchor, CompiledDay[] normals, int[] excDays, CompiledDay[] excTypes )
+  {
+    // snapshot of derived working time (e.g. calendars combined into a work profile), without conversions
+    this( 0L, anchor, normals, excDays, excTypes, null );
+  }
+
+  /**************************************** constructor ******************************************/
+  private CompiledCalendar( long version, int anchor, CompiledDay[] normals, int[] excDays, CompiledDay[] excTypes,
+      List<Day> conversion )
+  {
+    // cumulative work over normal cycle
+    m_version = version;
+    m_anchor = anchor;
+    int cycle = normals.length;
+    m_normals = normals;
+    m_cycleWork = new long[cycle + 1];
+    for ( int normal = 0; normal < cycle; normal++ )
+      m_cycleWork[normal + 1] = m_cycleWork[normal] + m_normals[normal].getWorkMS();
+
+    // run-length of same working state days from each normal day, wrapping round the cycle
+    m_cycleRuns = new int[cycle];
+    for ( int normal = cycle - 1; normal >= 0; normal-- )
+      if ( normal + 1 < cycle && isWorkingNormal( normal ) == isWorkingNormal( normal + 1 ) )
+        m_cycleRuns[normal] = m_cycleRuns[normal + 1] + 1;
+      else
+        m_cycleRuns[normal] = 1;
+    if ( m_cycleRuns[0] == cycle )
+      Arrays.fill( m_cycleRuns, Integer.MAX_VALUE ); // whole cycle same state so run never ends
+    else if ( isWorkingNormal( cycle - 1 ) == isWorkingNormal( 0 ) )
+      for ( int normal = cycle - 1; normal >= 0 && normal + m_cycleRuns[normal] == cycle; normal-- )
+        m_cycleRuns[normal] += m_cycleRuns[0]; // run continues into start of next cycle
+
+    // exceptions are already in date order, add cumulative difference from normal cycle work
+    int count = excDays.length;
+    m_excDays = excDays;
+    m_excTypes = excTypes;
+    m_excWork = new long[count + 1];
+    for ( int index = 0; index < count; index++ )
+    {
+      long normalWork = normalDay( m_excDays[index] ).getWorkMS();
+      m_excWork[index + 1] = m_excWork[index] + m_excTypes[index].getWorkMS() - normalWork;
+    }
+
+    m_years = new ConcurrentHashMap<>();
+    m_conversion = conversion == null ? null : new WorkConversion( conversion, m_cycleWork[cycle] );
+  }
+
+  /****************************************** compiled *******************************************/
+  private static CompiledDay[] compiled( List<Day> days )
+  {
+    // return work period tables of day-types
+    var compiled = new CompiledDay[days.size()];
+    for ( int index = 0; index < compiled.length; index++ )
+      compiled[index] = days.get( index ).getCompiled();
+    return compiled;
+  }
+
+  private static CompiledDay[] compiled( CalendarExceptions exceptions )
+  {
+    // return work period tables of exception day-types in date order
+    var compiled = new CompiledDay[exceptions.size()];
+    for ( int index = 0; index < compiled.length; index++ )
+      compiled[index] = exceptions.day( index ).getCompiled();
+    return compiled;
+  }
+
+  /***************************************** getVersion ******************************************/
+  public long getVersion()
+  {
+    // return version stamp of calendar and its day-types when compiled
+    return m_version;
+  }
+
+  /****************************************** getAnchor ******************************************/
+  int getAnchor()
+  {
+    // return epoch-day of calendar cycle anchor
+    return m_anchor;
+  }
+
+  /*************************************** getCycleLength ****************************************/
+  int getCycleLength()
+  {
+    // return number of days in normal cycle
+    return m_normals.length;
+  }
+
+  /************************************** getExceptionDays ***************************************/
+  int[] getExceptionDays()
+  {
+    // return sorted epoch-days of exceptions, shared so must not be modified
+    return m_excDays;
+  }
+
+  /******************************************** getDay *******************************************/
+  public CompiledDay getDay( int epochDay )
+  {
+    // return day-type for epoch-day, exception if one exists otherwise normal cycle
+    int index = firstAtOrAfter( m_excDays, epochDay );
+    if ( index < m_excDays.length && m_excDays[index] == epochDay )
+      return m_excTypes[index];
+    return normalDay( epochDay );
+  }
+
+  /***************************************** isWorking *******************************************/
+  public boolean isWorking( int epochDay )
+  {
+    // return whether epoch-day is working, using the year's working-day bitset
+    var year = m_lastYear;
+    if ( year == null || !year.contains( epochDay ) )
+      year = workingYear( WorkingYear.yearOf( epochDay ) );
+    return year.isWorking( epochDay );
+  }
+
+  /************************************** countWorkingDays ***************************************/
+  public int countWorkingDays( int fromDay, int toDay )
+  {
+    // return number of working days between the two epoch-days inclusive, a year at a time
+    int count = 0;
+    for ( int year = WorkingYear.yearOf( fromDay ); fromDay <= toDay; year++ )
+    {
+      var bits = workingYear( year );
+      count += bits.count( fromDay, toDay );
+      fromDay = bits.getLastDay() + 1;
+    }
+    return count;
+  }
+
+  /*************************************** nextWorkingDay ****************************************/
+  public int nextWorkingDay( int epochDay )
+  {
+    // return first working epoch-day at or after specified, or Integer.MAX_VALUE if never
+    int lastException = m_excDays.length > 0 ? m_excDays[m_excDays.length - 1] : Integer.MIN_VALUE;
+    for ( int year = WorkingYear.yearOf( epochDay );; year++ )
+    {
+      var bits = workingYear( year );
+      int next = bits.next( epochDay );
+      if ( next >= 0 )
+        return next;
+
+      // normal cycle without work can only be broken by a later exception
+      if ( m_cycleWork[m_normals.length] == 0 && bits.getLastDay() >= lastException )
+        return Integer.MAX_VALUE;
+    }
+  }
+
+  /****************************************** toWorkMS *******************************************/
+  public long toWorkMS( TimeSpan span )
+  {
+    // return working milliseconds equivalent to time-span
+    return m_conversion.toWorkMS( span.getHundredths(), span.getUnit() );
+  }
+
+  public long toWorkMS( long hundredths, Unit unit )
+  {
+    // return working milliseconds equivalent to hundredths of unit
+    return m_conversion.toWorkMS( hundredths, unit );
+  }
+
+  /***************************************** toTimeSpan ******************************************/
+  public TimeSpan toTimeSpan( long workMS, Unit unit )
+  {
+    // return time-span in specified unit equivalent to working milliseconds
+    return m_conversion.toTimeSpan( workMS, unit );
+  }
+
+  /***************************************** workBetween *****************************************/
+  public long workBetween( long fromMS, long toMS )
+  {
+    // return worked milliseconds between two instants (negative if to is before from)
+    return workTo( toMS ) - workTo( fromMS );
+  }
+
+  /******************************************* addWork *******************************************/
+  public long addWork( long startMS, long work )
+  {
+    // return earliest instant by which specified worked milliseconds after start are done
+    if ( work < 0 )
+      return subtractWork( startMS, -work );
+    if ( work == 0 )
+      return startMS;
+
+    // find day in which work is completed, then time within that day
+    long target = workTo( startMS ) + work;
+    long day = lastDayAtMost( target - 1 );
+    if ( day == Long.MAX_VALUE )
+      return Long.MAX_VALUE; // no more work ever in calendar
+
+    int epochDay = (int) day;
+    return day * MS_PER_DAY + getDay( epochDay ).workEnd( (int) ( target - workBeforeDay( epochDay ) ) );
+  }
+
+  /**************************************** subtractWork *****************************************/
+  public long subtractWork( long endMS, long work )
+  {
+    // return latest instant from which specified worked milliseconds are done by end
+    if ( work < 0 )
+      return addWork( endMS, -work );
+    if ( work == 0 )
+      return endMS;
+
+    // find day in which work is started, then time within that day
+    long target = workTo( endMS ) - work;
+    long day = lastDayAtMost( target );
+    if ( day == Long.MIN_VALUE )
+      return Long.MIN_VALUE; // no earlier work ever in calendar
+
+    int epochDay = (int) day;
+    return day * MS_PER_DAY + getDay( epochDay ).workStart( (int) ( target - workBeforeDay( epochDay ) ) );
+  }
+
+  /************************************* nextWorkingInstant **************************************/
+  public long nextWorkingInstant( long ms )
+  {
+    // latest instant with the same cumulative work is where work resumes
+    long target = workTo( ms );
+    long day = lastDayAtMost( target );
+    if ( day == Long.MAX_VALUE )
+      return Long.MAX_VALUE; // no more work ever in calendar
+
+    int epochDay = (int) day;
+    return day * MS_PER_DAY + getDay( epochDay ).workStart( (int) ( target - workBeforeDay( epochDay ) ) );
+  }
+
+  /*********************************** previousWorkingInstant ************************************/
+  public long previousWorkingInstant( long ms )
+  {
+    // earliest instant with the same cumulative work is where work last stopped
+    long target = workTo( ms );
+    long day = lastDayAtMost( target - 1 );
+    if ( day == Long.MIN_VALUE )
+      return Long.MIN_VALUE; // no earlier work ever in calendar
+
+    int epochDay = (int) day;
+    return day * MS_PER_DAY + getDay( epochDay ).workEnd( (int) ( target - workBeforeDay( epochDay ) ) );
+  }
+
+  /************************************** nonWorkingSpans ****************************************/
+  public ArrayList<Span> nonWorkingSpans( long fromMS, long toMS )
+  {
+    // return spans of whole non-working days between the two instants, jumping whole runs of days
+    var spans = new ArrayList<Span>();
+    long lastDay = Math.floorDiv( toMS, MS_PER_DAY );
+    long day = Math.floorDiv( fromMS, MS_PER_DAY );
+    long spanStart = Long.MIN_VALUE;
+
+    while ( day <= lastDay )
+    {
+      // run is single day if exception, otherwise normal run cut short at next exception
+      int index = firstAtOrAfter( m_excDays, (int) day );
+      boolean working;
+      long run;
+      if ( index < m_excDays.length && m_excDays[index] == day )
+      {
+        working = m_excTypes[index].isWorking();
+        run = 1;
+      }
+      else
+      {
+        int normal = (int) Math.floorMod( day - m_anchor, m_normals.length );
+        working = isWorkingNormal( normal );
+        run = index < m_excDays.length ? Math.min( m_cycleRuns[normal], m_excDays[index] - day )
+            : m_cycleRuns[normal];
+      }
+
+      // start or finish non-working span at change of state
+      if ( !working && spanStart == Long.MIN_VALUE )
+        spanStart = day;
+      if ( working && spanStart != Long.MIN_VALUE )
+      {
+        spans.add( new Span( DateTime.ofMilliseconds( spanStart * MS_PER_DAY ),
+            DateTime.ofMilliseconds( day * MS_PER_DAY ) ) );
+        spanStart = Long.MIN_VALUE;
+      }
+      day += run;
+    }
+
+    // final span is limited to the end of the last requested day
+    if ( spanStart != Long.MIN_VALUE )
+      spans.add( new Span( DateTime.ofMilliseconds( spanStart * MS_PER_DAY ),
+          DateTime.ofMilliseconds( ( lastDay + 1 ) * MS_PER_DAY ) ) );
+    return spans;
+  }
+
+  /***************************************** workingYear *****************************************/
+  private WorkingYear workingYear( int year )
+  {
+    // return working-day bitset for year, building when first needed
+    var bits = m_years.computeIfAbsent( year, y -> new WorkingYear( y, this ) );
+    m_lastYear = bits;
+    return bits;
+  }
+
+  /******************************************* workTo ********************************************/
+  private long workTo( long ms )
+  {
+    // return cumulative worked milliseconds up to specified instant (relative to calendar anchor)
+    long day = Math.floorDiv( ms, MS_PER_DAY );
+    int epochDay = (int) day;
+    return workBeforeDay( epochDay ) + getDay( epochDay ).workBefore( (int) ( ms - day * MS_PER_DAY ) );
+  }
+
+  /**************************************** workBeforeDay ****************************************/
+  private long workBeforeDay( int epochDay )
+  {
+    // return cumulative worked milliseconds before start of specified day
+    return normalWorkBefore( epochDay ) + m_excWork[firstAtOrAfter( m_excDays, epochDay )];
+  }
+
+  /************************************** normalWorkBefore ***************************************/
+  private long normalWorkBefore( int epochDay )
+  {
+    // return cumulative normal-cycle worked milliseconds before specified day, using whole cycles
+    int cycle = m_normals.length;
+    long offset = (long) epochDay - m_anchor;
+    return Math.floorDiv( offset, cycle ) * m_cycleWork[cycle] + m_cycleWork[(int) Math.floorMod( offset, cycle )];
+  }
+
+  /**************************************** lastDayAtMost ****************************************/
+  private long lastDayAtMost( long work )
+  {
+    // return last day whose cumulative work before is at most specified, via first exception beyond
+    int low = 0;
+    int high = m_excDays.length;
+    while ( low < high )
+    {
+      int mid = ( low + high ) >>> 1;
+      if ( normalWorkBefore( m_excDays[mid] + 1 ) + m_excWork[mid + 1] > work )
+        high = mid;
+      else
+        low = mid + 1;
+    }
+
+    // between previous exception and this one only the normal cycle applies
+    long day = normalLastDayAtMost( work - m_excWork[low] );
+    if ( low < m_excDays.length && day >= m_excDays[low] )
+      return m_excDays[low];
+    return day;
+  }
+
+  /************************************* normalLastDayAtMost *************************************/
+  private long normalLastDayAtMost( long work )
+  {
+    // return last day whose cumulative normal-cycle work before is at most specified
+    int cycle = m_normals.length;
+    long cycleWork = m_cycleWork[cycle];
+    if ( cycleWork == 0 )
+      return work >= 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+
+    long cycles = Math.floorDiv( work, cycleWork );
+    long remainder = work - cycles * cycleWork;
+    int low = 0;
+    int high = cycle - 1;
+    while ( low < high )
+    {
+      int mid = ( low + high + 1 ) >>> 1;
+      if ( m_cycleWork[mid] <= remainder )
+        low = mid;
+      else
+        high = mid - 1;
+    }
+
+    return m_anchor + cycles * cycle + low;
+  }
+
+  /*************************************** isWorkingNormal ***************************************/
+  private boolean isWorkingNormal( int normal )
+  {
+    // return if normal cycle day is working, wrapping round to start of cycle
+    return m_normals[normal % m_normals.length].isWorking();
+  }
+
+  /****************************************** normalDay ******************************************/
+  CompiledDay normalDay( int epochDay )
+  {
+    // return normal cycle day-type for specified day
+    return m_normals[(int) Math.floorMod( (long) epochDay - m_anchor, m_normals.length )];
+  }
+
+  /**************************************** firstAtOrAfter ***************************************/
+  private static int firstAtOrAfter( int[] sorted, int value )
+  {
+    // return index of first array element at or after value (array length if none)
+    int index = Arrays.binarySearch( sorted, value );
+    return index < 0 ? -index - 1 : index;
+  }
+
+}
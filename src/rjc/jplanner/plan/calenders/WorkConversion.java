@@ -0,0 +1,96 @@
+/**************************************************************************
+ *  Copyright (C) 2026 by Richard Crook                                   *
+ *  https://github.com/dazzle50/JPlannerFX                                *
+ *                                                                        *
+ *  This program is free software: you can redistribute it and/or modify  *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  This program is distributed in the hope that it will be useful,       *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with this program.  If not, see http://www.gnu.org/licenses/    *
+ **************************************************************************/
+
+package rjc.jplanner.plan.calenders;
+
+import java.util.List;
+
+import rjc.jplanner.plan.TimeSpan;
+import rjc.jplanner.plan.TimeSpan.Unit;
+import rjc.jplanner.plan.days.Day;
+import rjc.table.data.types.Time;
+
+/*************************************************************************************************/
+/******** Converts between time-spans and working milliseconds for one calendar snapshot *********/
+/*************************************************************************************************/
+
+final class WorkConversion
+{
+  private final double[]      m_unitMS; // working milliseconds per unit, indexed by unit ordinal
+  private final Memo[]        m_memo;   // direct-mapped memoised conversions, newer replaces older in slot
+
+  private static final double DAYS_PER_YEAR = 365.25;
+  private static final int    UNIT_BITS     = 3;      // bits for unit ordinal in packed key
+  private static final int    MEMO_BITS     = 8;      // memo has two to the power of this many slots
+
+  // immutable so a slot read by another thread always sees a matching key & value
+  private record Memo( long key, long workMS )
+  {
+  }
+
+  /**************************************** constructor ******************************************/
+  WorkConversion( List<Day> normals, long cycleWorkMS )
+  {
+    // day-type work value gives equivalence between working milliseconds and days
+    double cycleDays = 0.0;
+    for ( var day : normals )
+      cycleDays += day.getWork();
+
+    // calendar without any work treats a day as whole 24 hours every day
+    double dayMS = Time.MILLIS_PER_DAY;
+    double daysPerDay = 1.0;
+    if ( cycleDays > 0.0 && cycleWorkMS > 0 )
+    {
+      dayMS = cycleWorkMS / cycleDays;
+      daysPerDay = cycleDays / normals.size();
+    }
+
+    m_unitMS = new double[Unit.values().length];
+    m_unitMS[Unit.SECONDS.ordinal()] = Time.MILLIS_PER_SECOND;
+    m_unitMS[Unit.MINUTES.ordinal()] = Time.MILLIS_PER_MINUTE;
+    m_unitMS[Unit.HOURS.ordinal()] = Time.MILLIS_PER_HOUR;
+    m_unitMS[Unit.DAYS.ordinal()] = dayMS;
+    m_unitMS[Unit.WEEKS.ordinal()] = dayMS * daysPerDay * 7.0;
+    m_unitMS[Unit.MONTHS.ordinal()] = dayMS * daysPerDay * DAYS_PER_YEAR / 12.0;
+    m_unitMS[Unit.YEARS.ordinal()] = dayMS * daysPerDay * DAYS_PER_YEAR;
+    m_memo = new Memo[1 << MEMO_BITS];
+  }
+
+  /****************************************** toWorkMS *******************************************/
+  long toWorkMS( long hundredths, Unit unit )
+  {
+    // return working milliseconds for hundredths of unit, memoised as plans reuse few amounts
+    long key = hundredths << UNIT_BITS | unit.ordinal();
+    int slot = (int) ( key * 0x9E3779B97F4A7C15L >>> 64 - MEMO_BITS ); // fibonacci hash top bits
+    var memo = m_memo[slot];
+    if ( memo != null && memo.key == key )
+      return memo.workMS;
+
+    long workMS = Math.round( hundredths * m_unitMS[unit.ordinal()] / 100.0 );
+    m_memo[slot] = new Memo( key, workMS );
+    return workMS;
+  }
+
+  /***************************************** toTimeSpan ******************************************/
+  TimeSpan toTimeSpan( long workMS, Unit unit )
+  {
+    // return time-span in specified unit equivalent to working milliseconds
+    return TimeSpan.of( workMS / m_unitMS[unit.ordinal()], unit );
+  }
+
+}
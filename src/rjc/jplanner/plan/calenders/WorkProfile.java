@@ -0,0 +1,331 @@
+/**************************************************************************
+ *  Copyright (C) 2026 by Richard Crook                                   *
+ *  https://github.com/dazzle50/JPlannerFX                                *
+ *                                                                        *
+ *  This program is free software: you can redistribute it and/or modify  *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  This program is distributed in the hope that it will be useful,       *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with this program.  If not, see http://www.gnu.org/licenses/    *
+ **************************************************************************/
+
+package rjc.jplanner.plan.calenders;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeSet;
+
+import rjc.jplanner.plan.days.CompiledDay;
+import rjc.table.data.types.DateTime;
+import rjc.table.data.types.Time;
+
+/*************************************************************************************************/
+/************** Working-time profile derived by intersecting or uniting calendars ****************/
+/*************************************************************************************************/
+
+public final class WorkProfile
+{
+  private final boolean            m_union;     // true if working when any calendar works, otherwise all
+  private final long               m_startMS;   // instant availability starts
+  private final long               m_endMS;     // instant availability ends
+  private final boolean            m_bounded;   // true if availability bounds limit the merged working time
+  private final CompiledCalendar   m_merged;    // merged working time with cycle prefix sums & exception corrections
+
+  private static final long        MS_PER_DAY = Time.MILLIS_PER_DAY;
+  private static final int         MAX_CYCLE  = 366 * 100;  // longest combined cycle of calendars in days
+  private static final int[]       NO_WORK    = new int[0];
+  private static final long        MIN_MS     = DateTime.MIN_VALUE.toMilliseconds();
+  private static final long        MAX_MS     = DateTime.MAX_VALUE.toMilliseconds();
+
+  /**************************************** constructor ******************************************/
+  WorkProfile( CompiledCalendar[] calendars, boolean union, long startMS, long endMS )
+  {
+    // profile is immutable, merging calendars once so every query is arithmetic on the merged snapshot
+    m_union = union;
+    m_startMS = startMS;
+    m_endMS = endMS;
+    m_bounded = startMS > MIN_MS || endMS < MAX_MS;
+    m_merged = calendars.length == 1 ? calendars[0] : merge( calendars, union );
+  }
+
+  /******************************************** merge ********************************************/
+  private static CompiledCalendar merge( CompiledCalendar[] calendars, boolean union )
+  {
+    // combined normal cycle repeats after least common multiple of the calendar cycles
+    int anchor = calendars[0].getAnchor();
+    long cycle = 1;
+    for ( var calendar : calendars )
+    {
+      cycle = lcm( cycle, calendar.getCycleLength() );
+      if ( cycle > MAX_CYCLE )
+        throw new IllegalArgumentException( "Calendar cycles combine to more than " + MAX_CYCLE + " days" );
+    }
+
+    // days where every calendar has the same day-types share one merged day-type
+    var merged = new HashMap<List<CompiledDay>, CompiledDay>();
+    var normals = new CompiledDay[(int) cycle];
+    for ( int normal = 0; normal < cycle; normal++ )
+    {
+      var days = new CompiledDay[calendars.length];
+      for ( int c = 0; c < calendars.length; c++ )
+        days[c] = calendars[c].normalDay( anchor + normal );
+      normals[normal] = merged.computeIfAbsent( List.of( days ), key -> mergeDays( key, union ) );
+    }
+
+    // any calendar's exception is an exception of the merged working time
+    var excSet = new TreeSet<Integer>();
+    for ( var calendar : calendars )
+      for ( int epochDay : calendar.getExceptionDays() )
+        excSet.add( epochDay );
+    int[] excDays = new int[excSet.size()];
+    var excTypes = new CompiledDay[excDays.length];
+    int index = 0;
+    for ( int epochDay : excSet )
+    {
+      var days = new CompiledDay[calendars.length];
+      for ( int c = 0; c < calendars.length; c++ )
+        days[c] = calendars[c].getDay( epochDay );
+      excDays[index] = epochDay;
+      excTypes[index++] = merged.computeIfAbsent( List.of( days ), key -> mergeDays( key, union ) );
+    }
+
+    return new CompiledCalendar( anchor, normals, excDays, excTypes );
+  }
+
+  /****************************************** mergeDays ******************************************/
+  private static CompiledDay mergeDays( List<CompiledDay> days, boolean union )
+  {
+    // return day-type working when all (or for union any) of the day-types work
+    int[] intervals = periods( days.get( 0 ) );
+    for ( int index = 1; index < days.size(); index++ )
+      intervals = union ? unite( intervals, periods( days.get( index ) ) )
+          : intersect( intervals, periods( days.get( index ) ) );
+    return new CompiledDay( intervals );
+  }
+
+  /********************************************* lcm *********************************************/
+  private static long lcm( long a, long b )
+  {
+    // return least common multiple of two positive numbers
+    long x = a;
+    long y = b;
+    while ( y != 0 )
+    {
+      long r = x % y;
+      x = y;
+      y = r;
+    }
+    return a / x * b;
+  }
+
+  /***************************************** isUnion *********************************************/
+  public boolean isUnion()
+  {
+    return m_union;
+  }
+
+  /*************************************** dayIntervals ******************************************/
+  public int[] dayIntervals( int epochDay )
+  {
+    // return merged working intervals for day as alternating start & end milliseconds-of-day
+    long dayStart = epochDay * MS_PER_DAY;
+    if ( dayStart >= m_endMS || dayStart + MS_PER_DAY <= m_startMS )
+      return NO_WORK;
+
+    int[] intervals = periods( m_merged.getDay( epochDay ) );
+    if ( m_startMS > dayStart || m_endMS < dayStart + MS_PER_DAY )
+    {
+      // clip to availability bounds if they fall within day
+      int from = (int) Math.max( m_startMS - dayStart, 0 );
+      int to = (int) Math.min( m_endMS - dayStart, MS_PER_DAY );
+      intervals = intersect( intervals, new int[] { from, to } );
+    }
+    return intervals;
+  }
+
+  /***************************************** intervals *******************************************/
+  public long[] intervals( long fromMS, long toMS )
+  {
+    // return merged working intervals between two instants as alternating start & end milliseconds
+    long[] result = new long[16];
+    int size = 0;
+    long lastDay = Math.floorDiv( toMS, MS_PER_DAY );
+    for ( long day = Math.floorDiv( fromMS, MS_PER_DAY ); day <= lastDay; day++ )
+    {
+      long dayStart = day * MS_PER_DAY;
+      int[] intervals = dayIntervals( (int) day );
+      for ( int index = 0; index < intervals.length; index += 2 )
+      {
+        long start = Math.max( dayStart + intervals[index], fromMS );
+        long end = Math.min( dayStart + intervals[index + 1], toMS );
+        if ( start >= end )
+          continue;
+
+        // join interval continuing over midnight onto previous one
+        if ( size > 0 && result[size - 1] == start )
+          result[size - 1] = end;
+        else
+        {
+          if ( size == result.length )
+            result = Arrays.copyOf( result, size * 2 );
+          result[size++] = start;
+          result[size++] = end;
+        }
+      }
+    }
+    return Arrays.copyOf( result, size );
+  }
+
+  /***************************************** workBetween *****************************************/
+  public long workBetween( long fromMS, long toMS )
+  {
+    // return worked milliseconds between two instants (negative if to is before from)
+    if ( !m_bounded )
+      return m_merged.workBetween( fromMS, toMS );
+    return m_merged.workBetween( clip( fromMS ), clip( toMS ) );
+  }
+
+  /******************************************* addWork *******************************************/
+  public long addWork( long startMS, long work )
+  {
+    // return earliest instant by which specified worked milliseconds after start are done
+    if ( !m_bounded )
+      return m_merged.addWork( startMS, work );
+    if ( work < 0 )
+      return subtractWork( startMS, -work );
+    if ( work == 0 )
+      return startMS;
+
+    long start = Math.max( startMS, m_startMS );
+    if ( start >= m_endMS )
+      return Long.MAX_VALUE;
+    long finish = m_merged.addWork( start, work );
+    return finish > m_endMS ? Long.MAX_VALUE : finish; // not enough work available
+  }
+
+  /**************************************** subtractWork *****************************************/
+  public long subtractWork( long endMS, long work )
+  {
+    // return latest instant from which specified worked milliseconds are done by end
+    if ( !m_bounded )
+      return m_merged.subtractWork( endMS, work );
+    if ( work < 0 )
+      return addWork( endMS, -work );
+    if ( work == 0 )
+      return endMS;
+
+    long end = Math.min( endMS, m_endMS );
+    if ( end <= m_startMS )
+      return Long.MIN_VALUE;
+    long start = m_merged.subtractWork( end, work );
+    return start < m_startMS ? Long.MIN_VALUE : start; // not enough work available
+  }
+
+  /************************************* nextWorkingInstant **************************************/
+  public long nextWorkingInstant( long ms )
+  {
+    // return earliest instant at or after specified when profile is working
+    if ( !m_bounded )
+      return m_merged.nextWorkingInstant( ms );
+
+    long from = Math.max( ms, m_startMS );
+    if ( from >= m_endMS )
+      return Long.MAX_VALUE;
+    long next = m_merged.nextWorkingInstant( from );
+    return next >= m_endMS ? Long.MAX_VALUE : next; // no more work
+  }
+
+  /******************************************** clip *********************************************/
+  private long clip( long ms )
+  {
+    // return instant limited to availability bounds, as no work is done outside them
+    return Math.min( Math.max( ms, m_startMS ), m_endMS );
+  }
+
+  /******************************************* periods *******************************************/
+  private static int[] periods( CompiledDay day )
+  {
+    // return day-type work periods as alternating start & end milliseconds-of-day
+    int count = day.getPeriodCount();
+    int[] periods = new int[count * 2];
+    for ( int period = 0; period < count; period++ )
+    {
+      periods[period * 2] = day.getPeriodStart( period );
+      periods[period * 2 + 1] = day.getPeriodEnd( period );
+    }
+    return periods;
+  }
+
+  /****************************************** intersect ******************************************/
+  private static int[] intersect( int[] a, int[] b )
+  {
+    // return intervals covered by both sorted interval lists
+    int[] result = new int[a.length + b.length];
+    int size = 0;
+    int i = 0;
+    int j = 0;
+    while ( i < a.length && j < b.length )
+    {
+      int start = Math.max( a[i], b[j] );
+      int end = Math.min( a[i + 1], b[j + 1] );
+      if ( start < end )
+      {
+        result[size++] = start;
+        result[size++] = end;
+      }
+
+      // advance whichever interval finishes first
+      if ( a[i + 1] < b[j + 1] )
+        i += 2;
+      else
+        j += 2;
+    }
+    return Arrays.copyOf( result, size );
+  }
+
+  /******************************************** unite ********************************************/
+  private static int[] unite( int[] a, int[] b )
+  {
+    // return intervals covered by either sorted interval list, joining overlapping or touching
+    int[] result = new int[a.length + b.length];
+    int size = 0;
+    int i = 0;
+    int j = 0;
+    while ( i < a.length || j < b.length )
+    {
+      // take whichever interval starts first
+      int start;
+      int end;
+      if ( j >= b.length || ( i < a.length && a[i] <= b[j] ) )
+      {
+        start = a[i];
+        end = a[i + 1];
+        i += 2;
+      }
+      else
+      {
+        start = b[j];
+        end = b[j + 1];
+        j += 2;
+      }
+
+      if ( size > 0 && start <= result[size - 1] )
+        result[size - 1] = Math.max( result[size - 1], end );
+      else
+      {
+        result[size++] = start;
+        result[size++] = end;
+      }
+    }
+    return Arrays.copyOf( result, size );
+  }
+
+}
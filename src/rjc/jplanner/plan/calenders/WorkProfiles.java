@@ -0,0 +1,109 @@
+/**************************************************************************
+ *  Copyright (C) 2026 by Richard Crook                                   *
+ *  https://github.com/dazzle50/JPlannerFX                                *
+ *                                                                        *
+ *  This program is free software: you can redistribute it and/or modify  *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  This program is distributed in the hope that it will be useful,       *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with this program.  If not, see http://www.gnu.org/licenses/    *
+ **************************************************************************/
+
+package rjc.jplanner.plan.calenders;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import rjc.table.data.types.DateTime;
+
+/*************************************************************************************************/
+/*********** Cache of derived work profiles keyed by participating calendar snapshots ************/
+/*************************************************************************************************/
+
+public class WorkProfiles
+{
+  private static final int                      MAX_PROFILES = 256; // least recently used beyond are dropped
+  private final LinkedHashMap<Key, WorkProfile> m_profiles;         // cached profiles in access order
+
+  // calendar snapshots compare by identity, so a changed calendar gives a different key, whatever the order
+  private record Key( boolean union, long startMS, long endMS, Set<CompiledCalendar> calendars )
+  {
+  }
+
+  /**************************************** constructor ******************************************/
+  public WorkProfiles()
+  {
+    // access ordered map dropping least recently used profile when full
+    m_profiles = new LinkedHashMap<>( 64, 0.75f, true )
+    {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry( Map.Entry<Key, WorkProfile> eldest )
+      {
+        return size() > MAX_PROFILES;
+      }
+    };
+  }
+
+  /**************************************** intersection *****************************************/
+  public WorkProfile intersection( DateTime start, DateTime end, List<Calendar> calendars )
+  {
+    // return profile working only when all calendars work, within availability bounds
+    return get( false, start, end, calendars );
+  }
+
+  /******************************************** union ********************************************/
+  public WorkProfile union( DateTime start, DateTime end, List<Calendar> calendars )
+  {
+    // return profile working when any calendar works, within availability bounds
+    return get( true, start, end, calendars );
+  }
+
+  /********************************************* get *********************************************/
+  public WorkProfile get( boolean union, DateTime start, DateTime end, List<Calendar> calendars )
+  {
+    if ( calendars == null || calendars.isEmpty() )
+      throw new IllegalArgumentException( "Work profile needs at least one calendar" );
+
+    // key on current snapshot of each distinct calendar, so edits give a fresh profile
+    var snapshots = new ArrayList<CompiledCalendar>( calendars.size() );
+    for ( var calendar : calendars )
+    {
+      var snapshot = calendar.getCompiled();
+      if ( !snapshots.contains( snapshot ) )
+        snapshots.add( snapshot );
+    }
+
+    long startMS = start == null ? DateTime.MIN_VALUE.toMilliseconds() : start.toMilliseconds();
+    long endMS = end == null ? DateTime.MAX_VALUE.toMilliseconds() : end.toMilliseconds();
+    var key = new Key( union, startMS, endMS, Set.copyOf( snapshots ) );
+
+    synchronized ( m_profiles )
+    {
+      return m_profiles.computeIfAbsent( key,
+          k -> new WorkProfile( snapshots.toArray( new CompiledCalendar[0] ), union, startMS, endMS ) );
+    }
+  }
+
+  /******************************************** clear ********************************************/
+  public void clear()
+  {
+    // drop all cached profiles
+    synchronized ( m_profiles )
+    {
+      m_profiles.clear();
+    }
+  }
+
+}
@@ -0,0 +1,131 @@
+/**************************************************************************
+ *  Copyright (C) 2026 by Richard Crook                                   *
+ *  https://github.com/dazzle50/JPlannerFX                                *
+ *                                                                        *
+ *  This program is free software: you can redistribute it and/or modify  *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  This program is distributed in the hope that it will be useful,       *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with this program.  If not, see http://www.gnu.org/licenses/    *
+ **************************************************************************/
+
+package rjc.jplanner.plan.calenders;
+
+import java.time.LocalDate;
+
+/*************************************************************************************************/
+/************************ Bitset of working days for one calendar year ***************************/
+/*************************************************************************************************/
+
+final class WorkingYear
+{
+  private final int    m_year;     // calendar year
+  private final int    m_firstDay; // epoch-day of 1st January
+  private final int    m_days;     // number of days in year (365 or 366)
+  private final long[] m_bits;     // bit set for each working day of year
+
+  /**************************************** constructor ******************************************/
+  WorkingYear( int year, CompiledCalendar calendar )
+  {
+    // set bit for every working day of the year
+    m_year = year;
+    m_firstDay = (int) LocalDate.of( year, 1, 1 ).toEpochDay();
+    m_days = LocalDate.of( year, 1, 1 ).lengthOfYear();
+    m_bits = new long[( m_days + 63 ) >>> 6];
+    for ( int day = 0; day < m_days; day++ )
+      if ( calendar.getDay( m_firstDay + day ).isWorking() )
+        m_bits[day >>> 6] |= 1L << day;
+  }
+
+  /******************************************* yearOf ********************************************/
+  static int yearOf( int epochDay )
+  {
+    // return calendar year containing epoch-day
+    return LocalDate.ofEpochDay( epochDay ).getYear();
+  }
+
+  /******************************************* getYear *******************************************/
+  int getYear()
+  {
+    return m_year;
+  }
+
+  /***************************************** getFirstDay *****************************************/
+  int getFirstDay()
+  {
+    // return epoch-day of first day of year
+    return m_firstDay;
+  }
+
+  /***************************************** getLastDay ******************************************/
+  int getLastDay()
+  {
+    // return epoch-day of last day of year
+    return m_firstDay + m_days - 1;
+  }
+
+  /****************************************** contains *******************************************/
+  boolean contains( int epochDay )
+  {
+    // return true if epoch-day is within this year
+    return epochDay >= m_firstDay && epochDay - m_firstDay < m_days;
+  }
+
+  /***************************************** isWorking *******************************************/
+  boolean isWorking( int epochDay )
+  {
+    // return true if epoch-day (within this year) is working
+    int day = epochDay - m_firstDay;
+    return ( m_bits[day >>> 6] & ( 1L << day ) ) != 0;
+  }
+
+  /******************************************** count ********************************************/
+  int count( int fromDay, int toDay )
+  {
+    // return number of working days between the two epoch-days inclusive, clipped to this year
+    int from = Math.max( fromDay - m_firstDay, 0 );
+    int to = Math.min( toDay - m_firstDay, m_days - 1 );
+    if ( from > to )
+      return 0;
+
+    // mask partial first and last words, whole words in between
+    int first = from >>> 6;
+    int last = to >>> 6;
+    long lowMask = -1L << from;
+    long highMask = -1L >>> ( 63 - ( to & 63 ) );
+    if ( first == last )
+      return Long.bitCount( m_bits[first] & lowMask & highMask );
+
+    int count = Long.bitCount( m_bits[first] & lowMask ) + Long.bitCount( m_bits[last] & highMask );
+    for ( int word = first + 1; word < last; word++ )
+      count += Long.bitCount( m_bits[word] );
+    return count;
+  }
+
+  /******************************************** next *********************************************/
+  int next( int epochDay )
+  {
+    // return first working epoch-day at or after specified within this year, or -1 if none
+    int day = Math.max( epochDay - m_firstDay, 0 );
+    if ( day >= m_days )
+      return -1;
+
+    int word = day >>> 6;
+    long bits = m_bits[word] & ( -1L << day );
+    while ( bits == 0 )
+    {
+      if ( ++word == m_bits.length )
+        return -1;
+      bits = m_bits[word];
+    }
+    return m_firstDay + ( word << 6 ) + Long.numberOfTrailingZeros( bits );
+  }
+
+}
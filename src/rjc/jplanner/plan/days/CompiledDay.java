@@ -0,0 +1,168 @@
+/**************************************************************************
+ *  Copyright (C) 2026 by Richard Crook                                   *
+ *  https://github.com/dazzle50/JPlannerFX                                *
+ *                                                                        *
+ *  This program is free software: you can redistribute it and/or modify  *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  This program is distributed in the hope that it will be useful,       *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with this program.  If not, see http://www.gnu.org/licenses/    *
+ **************************************************************************/
+
+package rjc.jplanner.plan.days;
+
+import java.util.Arrays;
+import java.util.List;
+
+import rjc.table.data.types.Time;
+
+/*************************************************************************************************/
+/************** Immutable primitive tables of a day-type work periods for fast lookup ************/
+/*************************************************************************************************/
+
+public final class CompiledDay
+{
+  private final int   m_workMS;  // number of worked milliseconds in day
+  private final int[] m_starts;  // work period start milliseconds-of-day
+  private final int[] m_ends;    // work period end milliseconds-of-day
+  private final int[] m_offsets; // worked milliseconds before each period (plus total)
+
+  /**************************************** constructor ******************************************/
+  public CompiledDay( List<DayWorkPeriod> periods )
+  {
+    // pre-calculate primitive work period tables from list of work periods
+    this( intervals( periods ) );
+  }
+
+  /**************************************** constructor ******************************************/
+  public CompiledDay( int[] intervals )
+  {
+    // pre-calculate primitive work period tables from sorted alternating start & end milliseconds-of-day
+    int count = intervals.length / 2;
+    m_starts = new int[count];
+    m_ends = new int[count];
+    m_offsets = new int[count + 1];
+
+    for ( int period = 0; period < count; period++ )
+    {
+      m_starts[period] = intervals[period * 2];
+      m_ends[period] = intervals[period * 2 + 1];
+      m_offsets[period + 1] = m_offsets[period] + m_ends[period] - m_starts[period];
+    }
+
+    m_workMS = m_offsets[count];
+  }
+
+  /****************************************** intervals ******************************************/
+  private static int[] intervals( List<DayWorkPeriod> periods )
+  {
+    // return work periods as alternating start & end milliseconds-of-day
+    int[] intervals = new int[periods.size() * 2];
+    for ( int period = 0; period < periods.size(); period++ )
+    {
+      intervals[period * 2] = periods.get( period ).m_start.toMillisecondsOfDay();
+      intervals[period * 2 + 1] = periods.get( period ).m_end.toMillisecondsOfDay();
+    }
+    return intervals;
+  }
+
+  /****************************************** getWorkMS ******************************************/
+  public int getWorkMS()
+  {
+    // return number of worked milliseconds in day
+    return m_workMS;
+  }
+
+  /***************************************** isWorking *******************************************/
+  public boolean isWorking()
+  {
+    // return if day has work periods
+    return m_starts.length > 0;
+  }
+
+  /*************************************** getPeriodCount ****************************************/
+  public int getPeriodCount()
+  {
+    return m_starts.length;
+  }
+
+  /*************************************** getPeriodStart ****************************************/
+  public int getPeriodStart( int period )
+  {
+    // return start millisecond-of-day of work period
+    return m_starts[period];
+  }
+
+  /**************************************** getPeriodEnd *****************************************/
+  public int getPeriodEnd( int period )
+  {
+    // return end millisecond-of-day of work period
+    return m_ends[period];
+  }
+
+  /***************************************** workBefore ******************************************/
+  public int workBefore( int ms )
+  {
+    // return worked milliseconds between start of day and specified millisecond-of-day
+    int period = Arrays.binarySearch( m_starts, ms );
+    if ( period < 0 )
+      period = -period - 2; // last period starting before ms
+    if ( period < 0 )
+      return 0;
+
+    return m_offsets[period] + Math.min( ms, m_ends[period] ) - m_starts[period];
+  }
+
+  /***************************************** workBetween *****************************************/
+  public int workBetween( int fromMS, int toMS )
+  {
+    // return worked milliseconds between two milliseconds-of-day (negative if to is before from)
+    return workBefore( toMS ) - workBefore( fromMS );
+  }
+
+  /******************************************* workEnd *******************************************/
+  public int workEnd( int work )
+  {
+    // return earliest millisecond-of-day by which specified worked milliseconds have been completed
+    if ( work <= 0 )
+      return 0;
+    if ( work > m_workMS )
+      throw new IllegalArgumentException( "Work " + work + " more than day-type work " + m_workMS );
+
+    // find first period finishing at or after the work is completed
+    int period = Arrays.binarySearch( m_offsets, 1, m_offsets.length, work );
+    if ( period < 0 )
+      period = -period - 1;
+
+    return m_starts[period - 1] + work - m_offsets[period - 1];
+  }
+
+  /****************************************** workStart ******************************************/
+  public int workStart( int work )
+  {
+    // return latest millisecond-of-day by which only specified worked milliseconds have been completed
+    if ( work < 0 )
+      throw new IllegalArgumentException( "Work " + work + " is negative" );
+    if ( work >= m_workMS )
+    {
+      if ( work > m_workMS )
+        throw new IllegalArgumentException( "Work " + work + " more than day-type work " + m_workMS );
+      return Time.MILLIS_PER_DAY;
+    }
+
+    // find period in which the work following is done
+    int period = Arrays.binarySearch( m_offsets, 0, m_offsets.length - 1, work );
+    if ( period < 0 )
+      period = -period - 2;
+
+    return m_starts[period] + work - m_offsets[period];
+  }
+
+}
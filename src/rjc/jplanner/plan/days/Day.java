@@ -20,6 +20,7 @@ package rjc.jplanner.plan.days;
 
 import java.util.ArrayList;
 
+import rjc.jplanner.plan.VersionStamp;
 import rjc.table.Utils;
 import rjc.table.data.types.Time;
 
@@ -31,10 +32,10 @@ public class Day
 {
   private String                   m_name;    // name of day type
   private double                   m_work;    // equivalent days worked (typically 1.0 or 0.0)
-  private ArrayList<DayWorkPeriod> m_periods; // list of work periods
+  private ArrayList<DayWorkPeriod> m_periods; // list of work periods, never changed once set so can be shared
 
-  @SuppressWarnings( "unused" ) // TODO: remove when implemented
-  private int                      m_workMS;  // pre-calculated number of worked milliseconds in day-type
+  private CompiledDay              m_compiled; // pre-calculated immutable work period tables
+  private long                     m_version;  // version stamp, changes on every committed edit
 
   public enum FIELD
   {
@@ -48,7 +49,8 @@ public class Day
     m_name = "New";
     m_work = 0.0;
     m_periods = new ArrayList<>();
-    m_workMS = 0;
+    m_compiled = new CompiledDay( m_periods );
+    m_version = VersionStamp.next();
   }
 
   /**************************************** constructor ******************************************/
@@ -80,6 +82,8 @@ public class Day
       m_periods.add( new DayWorkPeriod( start, end ) );
       last = end;
     }
+    m_compiled = new CompiledDay( m_periods );
+    m_version = VersionStamp.next();
   }
 
   /****************************************** toString *******************************************/
@@ -164,7 +168,10 @@ public class Day
         if ( newName.length() < 1 || newName.length() > 40 )
           return "Name length not between 1 and 40 characters";
         if ( commit )
+        {
           m_name = newName;
+          m_version = VersionStamp.next();
+        }
         return null;
 
       case Work:
@@ -174,7 +181,10 @@ public class Day
           if ( newWork < 0 || newWork > 9.99 )
             return "Value not between 0 and 9.99";
           if ( commit )
+          {
             m_work = newWork;
+            m_version = VersionStamp.next();
+          }
           return null;
         }
         return "Not double: " + Utils.objectsString( newValue );
@@ -207,7 +217,7 @@ public class Day
           if ( newPeriods.size() > 8 )
             return "Array size not between 0 and 8";
           if ( commit )
-            m_periods = newPeriods;
+            setPeriods( new ArrayList<>( newPeriods ) );
           return null;
         }
         catch ( Exception exception )
@@ -225,11 +235,14 @@ public class Day
             return problem;
           if ( commit )
           {
-            // set period start or end time;
+            // replace work period on copy of list, so any list shared with undo commands is unchanged
+            var periods = new ArrayList<>( m_periods );
+            var old = periods.get( period );
             if ( isStart )
-              m_periods.get( period ).m_start = time;
+              periods.set( period, new DayWorkPeriod( time, old.m_end ) );
             else
-              m_periods.get( period ).m_end = time;
+              periods.set( period, new DayWorkPeriod( old.m_start, time ) );
+            setPeriods( periods );
           }
           return null;
         }
@@ -265,4 +278,63 @@ public class Day
     return m_periods.size() > 0;
   }
 
+  /***************************************** setPeriods ******************************************/
+  private void setPeriods( ArrayList<DayWorkPeriod> periods )
+  {
+    // set work periods and pre-calculate their tables, building tables first so they can't be stale
+    var compiled = new CompiledDay( periods );
+    m_periods = periods;
+    m_compiled = compiled;
+    m_version = VersionStamp.next();
+  }
+
+  /***************************************** getVersion ******************************************/
+  public long getVersion()
+  {
+    // return version stamp, changes on every committed edit
+    return m_version;
+  }
+
+  /**************************************** getCompiled ******************************************/
+  public CompiledDay getCompiled()
+  {
+    // return immutable work period tables, safe to share between threads
+    return m_compiled;
+  }
+
+  /****************************************** getWorkMS ******************************************/
+  public int getWorkMS()
+  {
+    // return number of worked milliseconds in day-type
+    return m_compiled.getWorkMS();
+  }
+
+  /***************************************** workBefore ******************************************/
+  public int workBefore( int ms )
+  {
+    // return worked milliseconds between start of day and specified millisecond-of-day
+    return m_compiled.workBefore( ms );
+  }
+
+  /***************************************** workBetween *****************************************/
+  public int workBetween( int fromMS, int toMS )
+  {
+    // return worked milliseconds between two milliseconds-of-day (negative if to is before from)
+    return m_compiled.workBetween( fromMS, toMS );
+  }
+
+  /******************************************* workEnd *******************************************/
+  public int workEnd( int work )
+  {
+    // return earliest millisecond-of-day by which specified worked milliseconds have been completed
+    return m_compiled.workEnd( work );
+  }
+
+  /****************************************** workStart ******************************************/
+  public int workStart( int work )
+  {
+    // return latest millisecond-of-day by which only specified worked milliseconds have been completed
+    return m_compiled.workStart( work );
+  }
+
 }
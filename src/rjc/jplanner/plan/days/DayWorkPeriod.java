@@ -31,8 +31,8 @@ import rjc.table.data.types.Time;
  */
 public class DayWorkPeriod
 {
-  public Time m_start; // work period start time - public to allow direct access
-  public Time m_end;   // work period end time - public to allow direct access
+  public final Time m_start; // work period start time - public to allow direct access, final so can be shared
+  public final Time m_end;   // work period end time - public to allow direct access, final so can be shared
 
   /**************************************** constructor ******************************************/
   /**
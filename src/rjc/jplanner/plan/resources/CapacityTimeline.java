@@ -0,0 +1,368 @@
+/**************************************************************************
+ *  Copyright (C) 2026 by Richard Crook                                   *
+ *  https://github.com/dazzle50/JPlannerFX                                *
+ *                                                                        *
+ *  This program is free software: you can redistribute it and/or modify  *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  This program is distributed in the hope that it will be useful,       *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with this program.  If not, see http://www.gnu.org/licenses/    *
+ **************************************************************************/
+
+package rjc.jplanner.plan.resources;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import rjc.jplanner.plan.calenders.WorkProfile;
+
+/*************************************************************************************************/
+/************** Booked quantity of one resource over time, with fast capacity queries ************/
+/*************************************************************************************************/
+
+public class CapacityTimeline
+{
+  private static final double TOLERANCE = 1e-9; // allowance for rounding of fractional quantities
+
+  private Resource            m_resource;       // resource whose bookings are held
+  private WorkProfile         m_profile;        // resource working time within its availability
+  private double              m_capacity;       // quantity of resource available
+  private long                m_startMS;        // instant resource availability starts
+  private long                m_endMS;          // instant resource availability ends
+  private Node                m_root;           // treap of booked-load steps keyed by instant
+
+  // booked load from key instant until next key, with subtree extremes and pending add for children
+  private static final class Node
+  {
+    private final long key;
+    private final int  priority;
+    private double     value;
+    private double     max;
+    private double     min;
+    private double     lazy;
+    private Node       left;
+    private Node       right;
+
+    private Node( long key, double value )
+    {
+      this.key = key;
+      this.priority = ThreadLocalRandom.current().nextInt();
+      this.value = value;
+      this.max = value;
+      this.min = value;
+    }
+  }
+
+  // pair of treaps either side of a split
+  private record Split( Node left, Node right )
+  {
+  }
+
+  /**************************************** constructor ******************************************/
+  public CapacityTimeline( Resource resource, WorkProfile profile )
+  {
+    // construct with nothing booked, profile gives resource working time within its availability
+    m_resource = resource;
+    m_profile = profile;
+    m_capacity = resource.getAvailable();
+    m_startMS = resource.getStart().toMilliseconds();
+    m_endMS = resource.getEnd().toMilliseconds();
+  }
+
+  /***************************************** getResource *****************************************/
+  public Resource getResource()
+  {
+    return m_resource;
+  }
+
+  /***************************************** getCapacity *****************************************/
+  public double getCapacity()
+  {
+    return m_capacity;
+  }
+
+  /******************************************* getLoad *******************************************/
+  public double getLoad( long at )
+  {
+    // return booked quantity at instant, O(log n)
+    var floor = floor( m_root, at );
+    return floor == null ? 0.0 : floor.value;
+  }
+
+  /******************************************* maxLoad *******************************************/
+  public double maxLoad( long from, long to )
+  {
+    // return highest booked quantity in from-to, O(log n)
+    if ( from >= to )
+      return 0.0;
+    double max = getLoad( from );
+    var a = split( m_root, from + 1 );
+    var b = split( a.right(), to );
+    if ( b.left() != null )
+      max = Math.max( max, b.left().max );
+    m_root = merge( a.left(), merge( b.left(), b.right() ) );
+    return max;
+  }
+
+  /********************************************* fits ********************************************/
+  public boolean fits( long from, long to, double quantity )
+  {
+    // return true if quantity is free throughout from-to within resource availability
+    return from >= m_startMS && to <= m_endMS && maxLoad( from, to ) + quantity <= m_capacity + TOLERANCE;
+  }
+
+  /******************************************* reserve *******************************************/
+  public void reserve( long from, long to, double quantity )
+  {
+    // book quantity from-to, O(log n), over-booking is allowed so over-allocation can be reported
+    if ( from >= to || quantity == 0.0 )
+      return;
+    ensureKey( from );
+    ensureKey( to );
+    var a = split( m_root, from );
+    var b = split( a.right(), to );
+    apply( b.left(), quantity );
+    m_root = merge( a.left(), merge( b.left(), b.right() ) );
+    coalesce( from );
+    coalesce( to );
+  }
+
+  /******************************************* release *******************************************/
+  public void release( long from, long to, double quantity )
+  {
+    // remove earlier booking of quantity from-to, O(log n)
+    reserve( from, to, -quantity );
+  }
+
+  /******************************************* freeFrom ******************************************/
+  public long freeFrom( long from, long to, double quantity )
+  {
+    // return from if quantity fits throughout from-to, otherwise earliest instant worth trying next
+    if ( from < m_startMS )
+      return m_startMS;
+    if ( to > m_endMS )
+      return Long.MAX_VALUE;
+
+    double limit = m_capacity - quantity + TOLERANCE;
+    long conflict = getLoad( from ) > limit ? from : firstAbove( from, limit );
+    if ( conflict >= to )
+      return from;
+    return firstAtMost( conflict, limit );
+  }
+
+  /***************************************** earliestFit *****************************************/
+  public long earliestFit( long from, long work, double quantity, WorkProfile profile )
+  {
+    // return earliest start at or after from where quantity is free for work in profile, or Long.MAX_VALUE
+    double limit = m_capacity - quantity + TOLERANCE;
+    long start = profile.nextWorkingInstant( Math.max( from, m_startMS ) );
+    while ( start != Long.MAX_VALUE && start < m_endMS )
+    {
+      // gaps shorter in elapsed time than the work are skipped without consulting the calendar
+      long conflict = getLoad( start ) > limit ? start : firstAbove( start, limit );
+      if ( conflict - start >= work )
+      {
+        long finish = work == 0 ? start : profile.addWork( start, work );
+        if ( finish <= conflict && finish <= m_endMS )
+          return start;
+        if ( finish > m_endMS )
+          break;
+      }
+      if ( conflict == Long.MAX_VALUE )
+        break;
+
+      long free = firstAtMost( conflict, limit );
+      start = free == Long.MAX_VALUE ? free : profile.nextWorkingInstant( free );
+    }
+    return Long.MAX_VALUE;
+  }
+
+  public long earliestFit( long from, long work, double quantity )
+  {
+    // earliest fit in resource's own working time
+    return earliestFit( from, work, quantity, m_profile );
+  }
+
+  /****************************************** firstAbove *****************************************/
+  private long firstAbove( long after, double limit )
+  {
+    // return first step key after instant with load above limit, or Long.MAX_VALUE
+    var node = firstAbove( m_root, after, limit );
+    return node == null ? Long.MAX_VALUE : node.key;
+  }
+
+  private static Node firstAbove( Node node, long after, double limit )
+  {
+    // descend only into subtrees whose highest load is above limit
+    if ( node == null || node.max <= limit )
+      return null;
+    push( node );
+    if ( node.key <= after )
+      return firstAbove( node.right, after, limit );
+
+    var found = firstAbove( node.left, after, limit );
+    if ( found != null )
+      return found;
+    return node.value > limit ? node : firstAbove( node.right, after, limit );
+  }
+
+  /***************************************** firstAtMost *****************************************/
+  private long firstAtMost( long after, double limit )
+  {
+    // return first step key after instant with load at or below limit, or Long.MAX_VALUE
+    var node = firstAtMost( m_root, after, limit );
+    return node == null ? Long.MAX_VALUE : node.key;
+  }
+
+  private static Node firstAtMost( Node node, long after, double limit )
+  {
+    // descend only into subtrees whose lowest load is at or below limit
+    if ( node == null || node.min > limit )
+      return null;
+    push( node );
+    if ( node.key <= after )
+      return firstAtMost( node.right, after, limit );
+
+    var found = firstAtMost( node.left, after, limit );
+    if ( found != null )
+      return found;
+    return node.value <= limit ? node : firstAtMost( node.right, after, limit );
+  }
+
+  /****************************************** ensureKey ******************************************/
+  private void ensureKey( long at )
+  {
+    // ensure a step starts at instant, carrying on the load in force there
+    var floor = floor( m_root, at );
+    if ( floor != null && floor.key == at )
+      return;
+    var parts = split( m_root, at );
+    m_root = merge( parts.left(), merge( new Node( at, floor == null ? 0.0 : floor.value ), parts.right() ) );
+  }
+
+  /****************************************** coalesce *******************************************/
+  private void coalesce( long at )
+  {
+    // remove step at instant if it carries the same load as the step before, keeping treap small
+    var node = floor( m_root, at );
+    if ( node == null || node.key != at )
+      return;
+    var before = at == Long.MIN_VALUE ? null : floor( m_root, at - 1 );
+    double previous = before == null ? 0.0 : before.value;
+    if ( Math.abs( node.value - previous ) > TOLERANCE )
+      return;
+
+    var a = split( m_root, at );
+    var b = split( a.right(), at + 1 );
+    m_root = merge( a.left(), b.right() );
+  }
+
+  /******************************************** floor ********************************************/
+  private static Node floor( Node node, long at )
+  {
+    // return step in force at instant, or null if before first step
+    Node floor = null;
+    while ( node != null )
+    {
+      push( node );
+      if ( node.key <= at )
+      {
+        floor = node;
+        node = node.right;
+      }
+      else
+        node = node.left;
+    }
+    return floor;
+  }
+
+  /******************************************** split ********************************************/
+  private static Split split( Node node, long key )
+  {
+    // split treap into steps before key, and steps at or after key
+    if ( node == null )
+      return new Split( null, null );
+    push( node );
+    if ( node.key < key )
+    {
+      var parts = split( node.right, key );
+      node.right = parts.left();
+      update( node );
+      return new Split( node, parts.right() );
+    }
+    var parts = split( node.left, key );
+    node.left = parts.right();
+    update( node );
+    return new Split( parts.left(), node );
+  }
+
+  /******************************************** merge ********************************************/
+  private static Node merge( Node left, Node right )
+  {
+    // merge treaps where every left key is before every right key
+    if ( left == null )
+      return right;
+    if ( right == null )
+      return left;
+    if ( left.priority > right.priority )
+    {
+      push( left );
+      left.right = merge( left.right, right );
+      update( left );
+      return left;
+    }
+    push( right );
+    right.left = merge( left, right.left );
+    update( right );
+    return right;
+  }
+
+  /******************************************** apply ********************************************/
+  private static void apply( Node node, double quantity )
+  {
+    // add quantity to every step in subtree, deferring children until needed
+    if ( node == null )
+      return;
+    node.value += quantity;
+    node.max += quantity;
+    node.min += quantity;
+    node.lazy += quantity;
+  }
+
+  /********************************************* push ********************************************/
+  private static void push( Node node )
+  {
+    // pass any pending add down to children
+    if ( node.lazy != 0.0 )
+    {
+      apply( node.left, node.lazy );
+      apply( node.right, node.lazy );
+      node.lazy = 0.0;
+    }
+  }
+
+  /******************************************* update ********************************************/
+  private static void update( Node node )
+  {
+    // recalculate subtree extremes from children
+    node.max = node.value;
+    node.min = node.value;
+    if ( node.left != null )
+    {
+      node.max = Math.max( node.max, node.left.max );
+      node.min = Math.min( node.min, node.left.min );
+    }
+    if ( node.right != null )
+    {
+      node.max = Math.max( node.max, node.right.max );
+      node.min = Math.min( node.min, node.right.min );
+    }
+  }
+
+}
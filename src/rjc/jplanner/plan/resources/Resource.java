@@ -39,7 +39,7 @@ public class Resource
   private Date     m_start;     // date availability starts inclusive
   private Date     m_end;       // date availability end inclusive
   private double   m_available; // number available
-  private double   m_cost;      // cost TODO
+  private double   m_cost;      // cost per day of work
   private Calendar m_calendar;  // calendar for resource
   private String   m_comment;   // free text
 
@@ -108,6 +108,13 @@ public class Resource
     return m_available;
   }
 
+  /******************************************* getCost *******************************************/
+  public double getCost()
+  {
+    // return the cost of each day of this resource's work
+    return m_cost;
+  }
+
   /******************************************* getValue ******************************************/
   public Object getValue( int field )
   {
@@ -288,6 +295,18 @@ public class Resource
         return "Not calendar: " + Utils.objectsString( newValue );
 
       case Cost:
+        // check new value is double and in range
+        if ( newValue instanceof Number num )
+        {
+          double cost = num.doubleValue();
+          if ( cost < 0 || cost > 99999.99 )
+            return "Value not between 0 and 99999.99";
+          if ( commit )
+            m_cost = cost;
+          return null;
+        }
+        return "Not number: " + Utils.objectsString( newValue );
+
       default:
         return "Not implemented";
     }
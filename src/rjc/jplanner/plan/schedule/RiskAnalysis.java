@@ -0,0 +1,220 @@
+/**************************************************************************
+ *  Copyright (C) 2026 by Richard Crook                                   *
+ *  https://github.com/dazzle50/JPlannerFX                                *
+ *                                                                        *
+ *  This program is free software: you can redistribute it and/or modify  *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  This program is distributed in the hope that it will be useful,       *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with this program.  If not, see http://www.gnu.org/licenses/    *
+ **************************************************************************/
+
+package rjc.jplanner.plan.schedule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinTask;
+
+import rjc.jplanner.plan.Plan;
+import rjc.jplanner.plan.Scenario;
+import rjc.table.data.types.DateTime;
+
+/*************************************************************************************************/
+/********* Monte Carlo schedule risk analysis sampling three-point task duration estimates *******/
+/*************************************************************************************************/
+
+public class RiskAnalysis
+{
+  private static final long GOLDEN = 0x9E3779B97F4A7C15L; // split-mix increment between random draws
+
+  private Scheduler         m_scheduler;  // prepared scheduler & pinned network, read-only to simulation threads
+  private int[]             m_uncertain;  // tasks with three-point estimates
+  private long[]            m_low;        // optimistic working milliseconds of each uncertain task
+  private long[]            m_mode;       // most likely working milliseconds of each uncertain task
+  private long[]            m_high;       // pessimistic working milliseconds of each uncertain task
+  private double[]          m_split;      // fraction of triangular distribution below the mode
+
+  private long[]            m_ends;       // simulated plan completions in ascending order
+  private int[]             m_critical;   // number of iterations each task was critical
+
+  /**************************************** constructor ******************************************/
+  public RiskAnalysis( Plan plan )
+  {
+    // pin copy of plan network and snapshot estimates, on the thread that edits the plan
+    this( new Scheduler( plan ) );
+  }
+
+  /**************************************** constructor ******************************************/
+  public RiskAnalysis( Scenario scenario )
+  {
+    // pin copy of scenario network and snapshot estimates, on the thread that edits the plan
+    this( new Scheduler( scenario ) );
+  }
+
+  /**************************************** constructor ******************************************/
+  private RiskAnalysis( Scheduler scheduler )
+  {
+    // tasks without estimates keep their deterministic work in every iteration, prepare pins the network
+    scheduler.prepare( false );
+    m_scheduler = scheduler;
+    var uncertain = new ArrayList<Integer>();
+    for ( int task : scheduler.getOrder() )
+      if ( scheduler.task( task ).getEstimate() != null )
+        uncertain.add( task );
+
+    // draws are made in row order, as topological order depends on the order dependencies were edited
+    uncertain.sort( null );
+
+    int count = uncertain.size();
+    m_uncertain = new int[count];
+    m_low = new long[count];
+    m_mode = new long[count];
+    m_high = new long[count];
+    m_split = new double[count];
+    long[] points = new long[3];
+    for ( int u = 0; u < count; u++ )
+    {
+      // points in different units are ordered once converted to working time
+      int task = uncertain.get( u );
+      var estimate = scheduler.task( task ).getEstimate();
+      points[0] = scheduler.toWorkMS( estimate.optimistic() );
+      points[1] = scheduler.toWorkMS( estimate.likely() );
+      points[2] = scheduler.toWorkMS( estimate.pessimistic() );
+      Arrays.sort( points );
+
+      m_uncertain[u] = task;
+      m_low[u] = points[0];
+      m_mode[u] = points[1];
+      m_high[u] = points[2];
+      m_split[u] = points[2] == points[0] ? 0.0 : (double) ( points[1] - points[0] ) / ( points[2] - points[0] );
+    }
+  }
+
+  /********************************************* run *********************************************/
+  public void run( int iterations, long seed )
+  {
+    // simulate iterations split over all cores, each iteration's draws depend only on seed and iteration number,
+    // blocks until done so call on a worker thread not the plan's, reads only the snapshot so later edits are unseen
+    if ( iterations < 1 )
+      throw new IllegalArgumentException( "Iterations must be positive (" + iterations + ")" );
+
+    int jobs = Math.min( iterations, Runtime.getRuntime().availableProcessors() );
+    long[] ends = new long[iterations];
+    int[][] critical = new int[jobs][];
+    var tasks = new ArrayList<ForkJoinTask<?>>( jobs );
+    for ( int job = 0; job < jobs; job++ )
+    {
+      int index = job;
+      int from = (int) ( (long) iterations * job / jobs );
+      int to = (int) ( (long) iterations * ( job + 1 ) / jobs );
+      tasks.add( ForkJoinTask.adapt( () -> critical[index] = simulate( from, to, seed, ends ) ) );
+    }
+    ForkJoinTask.invokeAll( tasks );
+
+    // merge per-job criticality counts
+    int size = m_scheduler.getWork().length;
+    m_critical = new int[size];
+    for ( int[] counts : critical )
+      for ( int task = 0; task < size; task++ )
+        m_critical[task] += counts[task];
+
+    Arrays.sort( ends );
+    m_ends = ends;
+  }
+
+  /******************************************* simulate ******************************************/
+  private int[] simulate( int from, int to, long seed, long[] ends )
+  {
+    // one job's iterations, reusing its own work & schedule arrays so iterations allocate nothing
+    long[] work = m_scheduler.getWork().clone();
+    var schedule = new Schedule( work.length );
+    int[] critical = new int[work.length];
+    int[] order = m_scheduler.getOrder();
+
+    for ( int iteration = from; iteration < to; iteration++ )
+    {
+      long state = seed + iteration * GOLDEN * GOLDEN;
+      for ( int u = 0; u < m_uncertain.length; u++ )
+      {
+        state += GOLDEN;
+        work[m_uncertain[u]] = triangular( u, ( mix( state ) >>> 11 ) * 0x1.0p-53 );
+      }
+
+      m_scheduler.simulate( work, schedule );
+      ends[iteration] = schedule.m_end;
+      for ( int task : order )
+        if ( schedule.m_totalFloat[task] <= 0 )
+          critical[task]++;
+    }
+    return critical;
+  }
+
+  /****************************************** triangular *****************************************/
+  private long triangular( int u, double uniform )
+  {
+    // inverse of triangular distribution cumulative probability
+    double low = m_low[u];
+    double mode = m_mode[u];
+    double high = m_high[u];
+    if ( uniform < m_split[u] )
+      return Math.round( low + Math.sqrt( uniform * ( high - low ) * ( mode - low ) ) );
+    return Math.round( high - Math.sqrt( ( 1.0 - uniform ) * ( high - low ) * ( high - mode ) ) );
+  }
+
+  /********************************************* mix *********************************************/
+  private static long mix( long z )
+  {
+    // split-mix 64-bit finaliser, turning a counter into a well distributed random value
+    z = ( z ^ ( z >>> 30 ) ) * 0xBF58476D1CE4E5B9L;
+    z = ( z ^ ( z >>> 27 ) ) * 0x94D049BB133111EBL;
+    return z ^ ( z >>> 31 );
+  }
+
+  /***************************************** getIterations ***************************************/
+  public int getIterations()
+  {
+    return m_ends == null ? 0 : m_ends.length;
+  }
+
+  /**************************************** getUncertainCount ************************************/
+  public int getUncertainCount()
+  {
+    // return number of tasks with three-point estimates
+    return m_uncertain.length;
+  }
+
+  /**************************************** getCompletion ****************************************/
+  public DateTime getCompletion( double probability )
+  {
+    // return plan completion not exceeded with given probability (e.g. 0.8 for P80), or null if not run
+    if ( probability < 0.0 || probability > 1.0 )
+      throw new IllegalArgumentException( "Probability not between 0 and 1 (" + probability + ")" );
+    if ( m_ends == null || m_ends[0] == Long.MIN_VALUE )
+      return null;
+
+    int index = (int) Math.ceil( probability * m_ends.length ) - 1;
+    return Schedule.toDateTime( m_ends[Math.max( index, 0 )] );
+  }
+
+  /**************************************** getCompletions ***************************************/
+  public long[] getCompletions()
+  {
+    // return copy of simulated plan completion milliseconds in ascending order, for distribution charts
+    return m_ends == null ? new long[0] : m_ends.clone();
+  }
+
+  /**************************************** getCriticality ***************************************/
+  public double getCriticality( int task )
+  {
+    // return fraction of iterations in which task was on the critical path
+    return m_ends == null ? 0.0 : (double) m_critical[task] / m_ends.length;
+  }
+
+}
@@ -0,0 +1,135 @@
+/**************************************************************************
+ *  Copyright (C) 2026 by Richard Crook                                   *
+ *  https://github.com/dazzle50/JPlannerFX                                *
+ *                                                                        *
+ *  This program is free software: you can redistribute it and/or modify  *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  This program is distributed in the hope that it will be useful,       *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with this program.  If not, see http://www.gnu.org/licenses/    *
+ **************************************************************************/
+
+package rjc.jplanner.plan.schedule;
+
+import java.util.Arrays;
+
+import rjc.table.data.types.DateTime;
+
+/*************************************************************************************************/
+/****************** Early & late dates and float for every task from a schedule ******************/
+/*************************************************************************************************/
+
+public class Schedule
+{
+  final long[] m_earlyStart;  // early start milliseconds indexed by task index
+  final long[] m_earlyFinish; // early finish milliseconds
+  final long[] m_lateStart;   // late start milliseconds
+  final long[] m_lateFinish;  // late finish milliseconds
+  final long[] m_totalFloat;  // total float in working milliseconds
+  final long[] m_freeFloat;   // free float in working milliseconds
+  long         m_end;         // latest early finish of any task
+
+  /**************************************** constructor ******************************************/
+  Schedule( int count )
+  {
+    // arrays sized for every task index, unscheduled tasks have no dates
+    m_earlyStart = new long[count];
+    m_earlyFinish = new long[count];
+    m_lateStart = new long[count];
+    m_lateFinish = new long[count];
+    m_totalFloat = new long[count];
+    m_freeFloat = new long[count];
+    m_end = Long.MIN_VALUE;
+  }
+
+  /******************************************* size **********************************************/
+  public int size()
+  {
+    // return number of task indexes covered
+    return m_earlyStart.length;
+  }
+
+  /**************************************** getEarlyStart ****************************************/
+  public DateTime getEarlyStart( int task )
+  {
+    return toDateTime( m_earlyStart[task] );
+  }
+
+  /*************************************** getEarlyFinish ****************************************/
+  public DateTime getEarlyFinish( int task )
+  {
+    return toDateTime( m_earlyFinish[task] );
+  }
+
+  /**************************************** getLateStart *****************************************/
+  public DateTime getLateStart( int task )
+  {
+    return toDateTime( m_lateStart[task] );
+  }
+
+  /**************************************** getLateFinish ****************************************/
+  public DateTime getLateFinish( int task )
+  {
+    return toDateTime( m_lateFinish[task] );
+  }
+
+  /**************************************** getTotalFloat ****************************************/
+  public long getTotalFloat( int task )
+  {
+    // return total float in working milliseconds (negative if late dates are before early)
+    return m_totalFloat[task];
+  }
+
+  /***************************************** getFreeFloat ****************************************/
+  public long getFreeFloat( int task )
+  {
+    // return free float in working milliseconds
+    return m_freeFloat[task];
+  }
+
+  /***************************************** isCritical ******************************************/
+  public boolean isCritical( int task )
+  {
+    // task is critical if it has no total float
+    return m_totalFloat[task] <= 0;
+  }
+
+  /******************************************* getEnd ********************************************/
+  public DateTime getEnd()
+  {
+    // return latest early finish of scheduled tasks, or null if nothing scheduled
+    return m_end == Long.MIN_VALUE ? null : toDateTime( m_end );
+  }
+
+  /***************************************** changedFrom *****************************************/
+  public int[] changedFrom( Schedule other )
+  {
+    // return indexes of tasks whose early start or finish differ from other schedule, for side-by-side comparison
+    int count = Math.min( size(), other.size() );
+    int changed = 0;
+    int[] tasks = new int[count];
+    for ( int task = 0; task < count; task++ )
+      if ( m_earlyStart[task] != other.m_earlyStart[task] || m_earlyFinish[task] != other.m_earlyFinish[task] )
+        tasks[changed++] = task;
+    return Arrays.copyOf( tasks, changed );
+  }
+
+  /***************************************** toDateTime ******************************************/
+  static DateTime toDateTime( long ms )
+  {
+    // return date-time for milliseconds, mapping beyond-calendar markers to date-time limits
+    if ( ms == Long.MAX_VALUE )
+      return DateTime.MAX_VALUE;
+    if ( ms == Long.MIN_VALUE )
+      return DateTime.MIN_VALUE;
+    return DateTime.ofMilliseconds( ms );
+  }
+
+}
@@ -0,0 +1,1025 @@
+/**************************************************************************
+ *  Copyright (C) 2026 by Richard Crook                                   *
+ *  https://github.com/dazzle50/JPlannerFX                                *
+ *                                                                        *
+ *  This program is free software: you can redistribute it and/or modify  *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  This program is distributed in the hope that it will be useful,       *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with this program.  If not, see http://www.gnu.org/licenses/    *
+ **************************************************************************/
+
+package rjc.jplanner.plan.schedule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+import rjc.jplanner.plan.Plan;
+import rjc.jplanner.plan.Scenario;
+import rjc.jplanner.plan.TimeSpan;
+import rjc.jplanner.plan.calenders.Calendar;
+import rjc.jplanner.plan.calenders.CompiledCalendar;
+import rjc.jplanner.plan.calenders.WorkProfile;
+import rjc.jplanner.plan.resources.CapacityTimeline;
+import rjc.jplanner.plan.resources.Resource;
+import rjc.jplanner.plan.tasks.CompiledNetwork;
+import rjc.jplanner.plan.tasks.Task;
+import rjc.jplanner.plan.tasks.TaskResources;
+import rjc.jplanner.plan.tasks.TaskType;
+import rjc.jplanner.plan.tasks.Tasks;
+
+/*************************************************************************************************/
+/************ Critical-path scheduler with forward & backward passes over task network ***********/
+/*************************************************************************************************/
+
+public class Scheduler
+{
+  private static final int PARALLEL_MIN   = 2000; // default fewest tasks worth scheduling in parallel
+  private static final int PARALLEL_BATCH = 256;  // fewest tasks in each parallel job
+
+  private Plan                    m_plan;        // plan being scheduled
+  private Scenario                m_scenario;    // what-if scenario of plan being scheduled, or null
+  private UnaryOperator<Calendar> m_calendars;   // scenario copy of each calendar, or calendar itself
+  private Tasks                   m_tasks;       // plan tasks, indexes match schedule arrays
+  private CompiledCalendar        m_calendar;    // plan default calendar for duration & lag conversion
+  private long                    m_planStart;   // plan default start milliseconds
+  private CompiledNetwork         m_live;        // compiled tasks & dependencies, edited in place with the plan
+  private CompiledNetwork         m_network;     // pinned copy read when scheduling, the live network once published
+  private long                    m_stamp;       // version stamp of live network when built
+
+  private WorkProfile[]           m_profiles;    // working-time profile of each task
+  private long[]                  m_work;        // working milliseconds needed by each task
+
+  private int[]                   m_order;       // active tasks in topological order
+  private Schedule                m_schedule;    // schedule results
+  private int                     m_threshold;   // fewest tasks in network or level to schedule in parallel
+  private boolean                 m_level;       // true if run is resource levelled
+  private int[]                   m_priority;    // priority of each task when levelling
+  private Demands                 m_demands;     // resource demands of each task when levelling
+  private volatile boolean        m_cancelled;   // true if run has been cancelled
+
+  // resolved resources shared by every task with the same assignments
+  private record Crew( WorkProfile profile, double units )
+  {
+  }
+
+  /**************************************** constructor ******************************************/
+  public Scheduler( Plan plan )
+  {
+    // scheduler for the plan as it is now
+    m_plan = plan;
+    m_tasks = plan.getTasks();
+    m_calendars = UnaryOperator.identity();
+    m_threshold = PARALLEL_MIN;
+  }
+
+  /**************************************** constructor ******************************************/
+  public Scheduler( Scenario scenario )
+  {
+    // scheduler for what-if scenario, results go to scenario leaving plan tasks unchanged
+    this( scenario.getPlan() );
+    m_scenario = scenario;
+    m_calendars = scenario::getCalendar;
+  }
+
+  /************************************* setParallelThreshold ************************************/
+  public void setParallelThreshold( int tasks )
+  {
+    // set fewest tasks in a network or level worth scheduling in parallel, below which stays single-threaded
+    if ( tasks < 1 )
+      throw new IllegalArgumentException( "Threshold must be positive (" + tasks + ")" );
+    m_threshold = tasks;
+  }
+
+  /****************************************** schedule *******************************************/
+  public Schedule schedule()
+  {
+    // build network, order it, then forward & backward passes, and apply dates to tasks
+    prepare( false );
+    compute();
+    return publish();
+  }
+
+  /******************************************** level ********************************************/
+  public Schedule level()
+  {
+    // resource-constrained schedule by serial schedule generation, placing highest priority eligible task first
+    prepare( true );
+    compute();
+    return publish();
+  }
+
+  /******************************************* prepare *******************************************/
+  public void prepare( boolean level )
+  {
+    // gather scheduler inputs and pin a copy of the network, on the thread that edits the plan, so compute
+    // needs nothing that later edits change
+    if ( m_plan.getDefaultStart() == null )
+      throw new IllegalStateException( "Plan has no default start" );
+    build();
+    order();
+    m_schedule = new Schedule( m_tasks.size() );
+    m_cancelled = false;
+
+    m_level = level;
+    m_priority = null;
+    m_demands = null;
+    if ( level )
+    {
+      m_priority = new int[m_work.length];
+      for ( int task : m_order )
+        m_priority[task] = (Integer) task( task ).getValue( Task.FIELD.Priority.ordinal() );
+      m_demands = new Demands( m_work.length );
+    }
+  }
+
+  /******************************************* compute *******************************************/
+  public void compute()
+  {
+    // forward & backward passes over prepared snapshot, safe on any single thread, plan is not touched
+    if ( m_level )
+    {
+      levelled();
+      return;
+    }
+
+    // independent sub-networks can be scheduled concurrently, each task written by one job only
+    var batches = m_order.length < m_threshold ? null : batches( components() );
+    if ( batches == null )
+    {
+      for ( int task : m_order )
+      {
+        checkCancelled();
+        forward( task );
+      }
+      m_schedule.m_end = end();
+      for ( int index = m_order.length - 1; index >= 0; index-- )
+      {
+        checkCancelled();
+        backward( m_order[index] );
+      }
+    }
+    else if ( batches.size() < 2 )
+      wavefront();
+    else
+    {
+      parallel( batches, batch ->
+      {
+        checkCancelled();
+        for ( int task : batch )
+          forward( task );
+      } );
+      m_schedule.m_end = end();
+      parallel( batches, batch ->
+      {
+        checkCancelled();
+        for ( int index = batch.length - 1; index >= 0; index-- )
+          backward( batch[index] );
+      } );
+    }
+  }
+
+  /******************************************* publish *******************************************/
+  public Schedule publish()
+  {
+    // apply computed dates to tasks, on the thread that edits the plan, if plan still matches snapshot
+    checkCancelled();
+    if ( !isCurrent() )
+      throw new CancellationException( "Plan changed while scheduling" );
+
+    if ( m_scenario != null )
+    {
+      m_scenario.setSchedule( m_schedule );
+      return m_schedule;
+    }
+
+    for ( int task : m_order )
+      apply( task );
+    m_tasks.datesChanged( m_order );
+    m_tasks.floatsChanged( m_order, m_schedule.m_totalFloat, true );
+    m_plan.setSchedule( m_schedule );
+    m_plan.setScheduler( m_level ? null : this ); // incremental rescheduling would undo levelling
+
+    // no other thread reads a published run, so incremental rescheduling follows edits on the live network
+    m_network = m_live;
+    return m_schedule;
+  }
+
+  /******************************************** cancel *******************************************/
+  public void cancel()
+  {
+    // request compute & publish to abandon this run, safe from any thread
+    m_cancelled = true;
+  }
+
+  /**************************************** checkCancelled ***************************************/
+  private void checkCancelled()
+  {
+    // abandon run if cancelled
+    if ( m_cancelled )
+      throw new CancellationException( "Scheduling cancelled" );
+  }
+
+  /******************************************* levelled ******************************************/
+  private void levelled()
+  {
+    // unconstrained early starts break ties between tasks of equal priority
+    for ( int task : m_order )
+      forward( task );
+    long[] earlyStart = m_schedule.m_earlyStart.clone();
+
+    // task becomes eligible once all its predecessors are placed
+    var network = m_network;
+    int count = m_work.length;
+    int[] priority = m_priority;
+    var eligible = new PriorityQueue<Integer>( ( a, b ) -> priority[a] != priority[b]
+        ? Integer.compare( priority[b], priority[a] )
+        : earlyStart[a] != earlyStart[b] ? Long.compare( earlyStart[a], earlyStart[b] ) : Integer.compare( a, b ) );
+    int[] waiting = new int[count];
+    for ( int task : m_order )
+    {
+      for ( int e = network.getPredStart( task ); e < network.getPredEnd( task ); e++ )
+        if ( network.isActive( network.getPredTask( e ) ) )
+          waiting[task]++;
+      if ( waiting[task] == 0 )
+        eligible.add( task );
+    }
+
+    while ( !eligible.isEmpty() )
+    {
+      checkCancelled();
+      int task = eligible.poll();
+      forward( task );
+      place( task, m_demands );
+      for ( int s = network.getSuccStart( task ); s < network.getSuccEnd( task ); s++ )
+      {
+        int succ = network.getSuccTask( s );
+        if ( network.isActive( succ ) && --waiting[succ] == 0 )
+          eligible.add( succ );
+      }
+    }
+
+    // late dates and floats relative to levelled dates
+    m_schedule.m_end = end();
+    for ( int index = m_order.length - 1; index >= 0; index-- )
+      backward( m_order[index] );
+  }
+
+  /******************************************** place ********************************************/
+  private void place( int task, Demands demands )
+  {
+    // delay task until every resource it needs has capacity throughout its work, then book it
+    var loads = demands.m_loads[task];
+    var quantities = demands.m_quantities[task];
+    if ( loads == null || m_work[task] == 0 )
+      return;
+
+    var profile = m_profiles[task];
+    var schedule = m_schedule;
+    long start = schedule.m_earlyStart[task];
+    long finish = schedule.m_earlyFinish[task];
+    boolean fixed = isFixed( task );
+
+    // single resource tasks can use the timeline's own earliest-fit search
+    if ( !fixed && loads.length == 1 )
+    {
+      start = loads[0].earliestFit( start, m_work[task], quantities[0], profile );
+      finish = shift( profile, start, m_work[task] );
+    }
+
+    while ( !fixed && start != Long.MAX_VALUE )
+    {
+      long retry = start;
+      for ( int r = 0; r < loads.length; r++ )
+        retry = Math.max( retry, loads[r].freeFrom( start, finish, quantities[r] ) );
+      if ( retry == start )
+        break;
+
+      start = next( profile, retry );
+      finish = shift( profile, start, m_work[task] );
+    }
+
+    schedule.m_earlyStart[task] = start;
+    schedule.m_earlyFinish[task] = finish;
+    for ( int r = 0; r < loads.length; r++ )
+      loads[r].reserve( start, finish, quantities[r] );
+  }
+
+  /******************************************* Demands *******************************************/
+  private class Demands
+  {
+    private CapacityTimeline[][] m_loads;      // booked load of each resource needed by each task
+    private double[][]           m_quantities; // quantity of each resource needed by each task
+
+    /*************************************** constructor *****************************************/
+    private Demands( int count )
+    {
+      // tag assignments are shared over matching resources in proportion to their availability
+      m_loads = new CapacityTimeline[count][];
+      m_quantities = new double[count][];
+      var loads = new IdentityHashMap<Resource, CapacityTimeline>();
+
+      for ( int task : m_order )
+        if ( task( task ).getValue( Task.FIELD.Resources.ordinal() ) instanceof TaskResources resources )
+        {
+          var needs = new LinkedHashMap<Resource, Double>();
+          for ( var assignment : resources.assignments() )
+          {
+            var matched = m_plan.getResources().findByTag( assignment.tag() );
+            double total = 0.0;
+            for ( var resource : matched )
+              total += resource.getAvailable();
+            for ( var resource : matched )
+              if ( resource.getAvailable() > 0.0 )
+              {
+                double quantity = assignment.allAvailable() ? resource.getAvailable()
+                    : assignment.quantity() * resource.getAvailable() / total;
+                needs.merge( resource, quantity, Double::sum );
+              }
+          }
+
+          // tags matching no available resource leave nothing to book
+          if ( needs.isEmpty() )
+            continue;
+          m_loads[task] = new CapacityTimeline[needs.size()];
+          m_quantities[task] = new double[needs.size()];
+          int r = 0;
+          for ( var need : needs.entrySet() )
+          {
+            var load = loads.computeIfAbsent( need.getKey(),
+                resource -> new CapacityTimeline( resource, m_plan.getWorkProfile( resource, m_calendars ) ) );
+            m_loads[task][r] = load;
+
+            // a task never needs more than a resource has, otherwise it could never be placed
+            m_quantities[task][r++] = Math.min( need.getValue(), load.getCapacity() );
+          }
+        }
+    }
+  }
+
+  /***************************************** reschedule ******************************************/
+  public int[] reschedule( int task, boolean network )
+  {
+    // reschedule after edit to one task on the plan's thread, returning indexes of tasks whose start or end
+    // changed, throws CancellationException if plan changed since scheduled or IllegalStateException if circular
+    if ( m_network != m_live )
+      throw new CancellationException( "Schedule not published" );
+    if ( !isCurrent() )
+      throw new CancellationException( "Plan changed since scheduled" );
+
+    // dirty tasks are the edited task plus both ends of any dependency added or removed, the network
+    // has already relinked the edited task's edges and moved it in topological order
+    var dirty = new BitSet( m_work.length );
+    dirty.set( task );
+    refresh( task );
+    if ( network )
+    {
+      dirty.or( m_network.takeTouched() );
+      neighbours( task, dirty );
+      order();
+    }
+
+    // forward pass in topological order over dirty tasks, spreading to successors only if dates moved
+    var net = m_network;
+    var changed = new BitSet( m_work.length );
+    var queued = new boolean[m_work.length];
+    var queue = new PriorityQueue<Integer>( ( a, b ) -> Integer.compare( net.getPosition( a ), net.getPosition( b ) ) );
+    for ( int t = dirty.nextSetBit( 0 ); t >= 0; t = dirty.nextSetBit( t + 1 ) )
+      if ( net.isActive( t ) )
+      {
+        queued[t] = true;
+        queue.add( t );
+      }
+
+    var schedule = m_schedule;
+    while ( !queue.isEmpty() )
+    {
+      int t = queue.poll();
+      long start = schedule.m_earlyStart[t];
+      long finish = schedule.m_earlyFinish[t];
+      forward( t );
+      if ( start == schedule.m_earlyStart[t] && finish == schedule.m_earlyFinish[t] )
+        continue;
+
+      changed.set( t );
+      for ( int s = net.getSuccStart( t ); s < net.getSuccEnd( t ); s++ )
+      {
+        int succ = net.getSuccTask( s );
+        if ( !queued[succ] && net.isActive( succ ) )
+        {
+          queued[succ] = true;
+          queue.add( succ );
+        }
+      }
+    }
+
+    // edited task always gets its scheduled dates back, even if user typed over them
+    if ( net.isActive( task ) )
+      changed.set( task );
+
+    // a moved schedule end moves every late date, otherwise backward pass only where needed
+    long end = end();
+    if ( end != schedule.m_end )
+    {
+      schedule.m_end = end;
+      for ( int index = m_order.length - 1; index >= 0; index-- )
+        backward( m_order[index] );
+      m_tasks.floatsChanged( m_order, schedule.m_totalFloat, true );
+    }
+    else
+      m_tasks.floatsChanged( backward( dirty, changed ).stream().toArray(), schedule.m_totalFloat, false );
+
+    // set new dates on tasks that moved
+    int[] moved = changed.stream().toArray();
+    for ( int t : moved )
+      apply( t );
+    return moved;
+  }
+
+  /****************************************** isCurrent ******************************************/
+  private boolean isCurrent()
+  {
+    // return true if network has not been recompiled for new tasks or calendar, and default start unchanged
+    if ( m_schedule == null || m_plan.getDefaultStart() == null )
+      return false;
+    if ( m_plan.getDefaultStart().toMilliseconds() != m_planStart
+        || m_calendars.apply( m_plan.getDefaultCalendar() ).getCompiled() != m_calendar )
+      return false;
+
+    // getting network recompiles edited rows, the stamp only changes if the whole network was recompiled
+    return network() == m_live && m_live.getStamp() == m_stamp;
+  }
+
+  /***************************************** neighbours ******************************************/
+  private void neighbours( int task, BitSet dirty )
+  {
+    // mark predecessors & successors of task in current network
+    var network = m_network;
+    for ( int e = network.getPredStart( task ); e < network.getPredEnd( task ); e++ )
+      dirty.set( network.getPredTask( e ) );
+    for ( int s = network.getSuccStart( task ); s < network.getSuccEnd( task ); s++ )
+      dirty.set( network.getSuccTask( s ) );
+  }
+
+  /****************************************** refresh ********************************************/
+  private void refresh( int index )
+  {
+    // re-gather work & profile of one edited task, which may have just become active
+    if ( m_network.isActive( index ) )
+      crew( index, new HashMap<>() );
+  }
+
+  /******************************************* network *******************************************/
+  private CompiledNetwork network()
+  {
+    // compiled network of plan tasks, or of a scenario's tasks, updated with rows edited since last got
+    if ( m_scenario == null )
+      return m_tasks.getNetwork( m_calendar );
+    return m_scenario.getNetwork( m_calendar );
+  }
+
+  /******************************************** build ********************************************/
+  private void build()
+  {
+    // gather work & profile of each active task, everything else is read directly from pinned network
+    int count = m_tasks.size();
+    m_calendar = m_calendars.apply( m_plan.getDefaultCalendar() ).getCompiled();
+    m_planStart = m_plan.getDefaultStart().toMilliseconds();
+    m_live = network();
+    m_live.takeTouched();
+    m_stamp = m_live.getStamp();
+    m_network = m_live.snapshot();
+    m_profiles = new WorkProfile[count];
+    m_work = new long[count];
+
+    // tasks with the same assignments (e.g. none) share one crew, so resources are resolved once per crew
+    var crews = new HashMap<List<TaskResources.Assignment>, Crew>();
+    for ( int index = 1; index < count; index++ )
+      if ( m_network.isActive( index ) )
+        crew( index, crews );
+  }
+
+  /******************************************** crew *********************************************/
+  private void crew( int index, HashMap<List<TaskResources.Assignment>, Crew> crews )
+  {
+    // set profile & work of task from its crew, resolving crew resources if not already known
+    List<TaskResources.Assignment> assignments = List.of();
+    if ( m_network.isResourced( index )
+        && task( index ).getValue( Task.FIELD.Resources.ordinal() ) instanceof TaskResources resources )
+      assignments = resources.assignments();
+
+    var crew = crews.get( assignments );
+    if ( crew == null )
+    {
+      crew = new Crew( m_plan.getWorkProfile( task( index ), m_calendars ), units( assignments ) );
+      crews.put( assignments, crew );
+    }
+
+    // fixed work tasks spread work over assigned resource units, others use duration
+    long work = m_network.getWork( index );
+    m_profiles[index] = crew.profile();
+    m_work[index] = m_network.isPerUnit( index ) ? Math.round( work / crew.units() ) : work;
+  }
+
+  /******************************************** order ********************************************/
+  private void order()
+  {
+    // active tasks in network topological order, which throws if network is circular
+    int[] order = m_network.getOrder();
+    int active = 0;
+    for ( int task : order )
+      if ( m_network.isActive( task ) )
+        active++;
+
+    m_order = new int[active];
+    active = 0;
+    for ( int task : order )
+      if ( m_network.isActive( task ) )
+        m_order[active++] = task;
+  }
+
+  /****************************************** wavefront ******************************************/
+  private void wavefront()
+  {
+    // one connected network scheduled level by level, tasks within a level being independent
+    int[][] levels = levels();
+    for ( int[] level : levels )
+    {
+      checkCancelled();
+      if ( level.length < m_threshold )
+        for ( int task : level )
+          forward( task );
+      else
+        parallel( slices( level ), slice ->
+        {
+          for ( int task : slice )
+            forward( task );
+        } );
+    }
+
+    // backward pass in reverse level order, as successors are always at deeper levels
+    m_schedule.m_end = end();
+    for ( int depth = levels.length - 1; depth >= 0; depth-- )
+    {
+      checkCancelled();
+      if ( levels[depth].length < m_threshold )
+        for ( int task : levels[depth] )
+          backward( task );
+      else
+        parallel( slices( levels[depth] ), slice ->
+        {
+          for ( int task : slice )
+            backward( task );
+        } );
+    }
+  }
+
+  /******************************************* levels ********************************************/
+  private int[][] levels()
+  {
+    // group active tasks by longest-path depth from tasks without predecessors
+    var network = m_network;
+    int[] depth = new int[m_work.length];
+    int deepest = 0;
+    for ( int task : m_order )
+    {
+      int d = 0;
+      for ( int e = network.getPredStart( task ); e < network.getPredEnd( task ); e++ )
+        if ( network.isActive( network.getPredTask( e ) ) )
+          d = Math.max( d, depth[network.getPredTask( e )] + 1 );
+      depth[task] = d;
+      deepest = Math.max( deepest, d );
+    }
+
+    int[] sizes = new int[deepest + 1];
+    for ( int task : m_order )
+      sizes[depth[task]]++;
+    int[][] levels = new int[deepest + 1][];
+    for ( int d = 0; d <= deepest; d++ )
+      levels[d] = new int[sizes[d]];
+    int[] fill = new int[deepest + 1];
+    for ( int task : m_order )
+      levels[depth[task]][fill[depth[task]]++] = task;
+    return levels;
+  }
+
+  /******************************************* slices ********************************************/
+  private static ArrayList<int[]> slices( int[] level )
+  {
+    // split level into parallel jobs of similar size
+    var slices = new ArrayList<int[]>();
+    for ( int start = 0; start < level.length; start += PARALLEL_BATCH )
+      slices.add( Arrays.copyOfRange( level, start, Math.min( level.length, start + PARALLEL_BATCH ) ) );
+    return slices;
+  }
+
+  /***************************************** components ******************************************/
+  private int[][] components()
+  {
+    // group active tasks into weakly-connected sub-networks by union-find over dependencies
+    var network = m_network;
+    int count = m_work.length;
+    int[] root = new int[count];
+    for ( int index = 0; index < count; index++ )
+      root[index] = index;
+    for ( int task : m_order )
+      for ( int e = network.getPredStart( task ); e < network.getPredEnd( task ); e++ )
+        if ( network.isActive( network.getPredTask( e ) ) )
+          root[find( root, task )] = find( root, network.getPredTask( e ) );
+
+    // number sub-networks by first appearance in topological order, so grouping is deterministic
+    int[] component = new int[count];
+    Arrays.fill( component, -1 );
+    int[] sizes = new int[m_order.length];
+    int components = 0;
+    for ( int task : m_order )
+    {
+      int r = find( root, task );
+      if ( component[r] < 0 )
+        component[r] = components++;
+      sizes[component[r]]++;
+    }
+
+    // each sub-network lists its tasks in topological order
+    int[][] groups = new int[components][];
+    for ( int c = 0; c < components; c++ )
+      groups[c] = new int[sizes[c]];
+    int[] fill = new int[components];
+    for ( int task : m_order )
+    {
+      int c = component[find( root, task )];
+      groups[c][fill[c]++] = task;
+    }
+    return groups;
+  }
+
+  /******************************************** find *********************************************/
+  private static int find( int[] root, int index )
+  {
+    // return union-find root of index, halving path as it goes
+    while ( root[index] != index )
+    {
+      root[index] = root[root[index]];
+      index = root[index];
+    }
+    return index;
+  }
+
+  /******************************************* batches *******************************************/
+  private static ArrayList<int[]> batches( int[][] components )
+  {
+    // combine consecutive small sub-networks so each parallel job has enough work
+    var batches = new ArrayList<int[]>();
+    int start = 0;
+    int size = 0;
+    for ( int c = 0; c < components.length; c++ )
+    {
+      size += components[c].length;
+      if ( size >= PARALLEL_BATCH || c == components.length - 1 )
+      {
+        int[] batch = new int[size];
+        int fill = 0;
+        for ( int join = start; join <= c; join++ )
+        {
+          System.arraycopy( components[join], 0, batch, fill, components[join].length );
+          fill += components[join].length;
+        }
+        batches.add( batch );
+        start = c + 1;
+        size = 0;
+      }
+    }
+    return batches;
+  }
+
+  /******************************************* parallel ******************************************/
+  private static void parallel( ArrayList<int[]> batches, Consumer<int[]> action )
+  {
+    // run action on each batch as fork-join tasks on the common pool, returning when all complete
+    var jobs = new ArrayList<ForkJoinTask<?>>( batches.size() );
+    for ( var batch : batches )
+      jobs.add( ForkJoinTask.adapt( () -> action.accept( batch ) ) );
+    ForkJoinTask.invokeAll( jobs );
+  }
+
+  /******************************************* forward *******************************************/
+  private void forward( int task )
+  {
+    forward( task, m_work, m_schedule );
+  }
+
+  private void forward( int task, long[] works, Schedule schedule )
+  {
+    // fixed period tasks stay where the user put them
+    var network = m_network;
+    var profile = m_profiles[task];
+    long work = works[task];
+    long startOn = network.getStartOn( task );
+    if ( isFixed( task ) )
+    {
+      schedule.m_earlyStart[task] = startOn;
+      schedule.m_earlyFinish[task] = network.getEndOn( task );
+      return;
+    }
+
+    // start-on tasks cannot start before their start, others not before plan start
+    long start = m_planStart;
+    if ( isStartOn( network.getType( task ) ) && startOn != Long.MIN_VALUE )
+      start = startOn;
+    long finish = Long.MIN_VALUE;
+
+    // dependencies on tasks not scheduled (e.g. blank) are ignored
+    for ( int e = network.getPredStart( task ); e < network.getPredEnd( task ); e++ )
+    {
+      int pred = network.getPredTask( e );
+      if ( !network.isActive( pred ) )
+        continue;
+      long lag = network.getPredLag( e );
+      switch ( network.getPredType( e ) )
+      {
+        case CompiledNetwork.FS -> start = Math.max( start, shift( profile, schedule.m_earlyFinish[pred], lag ) );
+        case CompiledNetwork.SS -> start = Math.max( start, shift( profile, schedule.m_earlyStart[pred], lag ) );
+        case CompiledNetwork.FF -> finish = Math.max( finish, shift( profile, schedule.m_earlyFinish[pred], lag ) );
+        case CompiledNetwork.SF -> finish = Math.max( finish, shift( profile, schedule.m_earlyStart[pred], lag ) );
+      }
+    }
+
+    // finish constraints may push start later
+    if ( work > 0 )
+    {
+      start = next( profile, start );
+      if ( finish != Long.MIN_VALUE )
+        start = Math.max( start, shift( profile, finish, -work ) );
+      schedule.m_earlyStart[task] = start;
+      schedule.m_earlyFinish[task] = shift( profile, start, work );
+    }
+    else
+    {
+      start = Math.max( start, finish );
+      schedule.m_earlyStart[task] = start;
+      schedule.m_earlyFinish[task] = start;
+    }
+  }
+
+  /****************************************** backward *******************************************/
+  private void backward( int task )
+  {
+    backward( task, m_work, m_schedule );
+  }
+
+  private void backward( int task, long[] works, Schedule schedule )
+  {
+    // late finish limited by successors, or by schedule end if none
+    var network = m_network;
+    var profile = m_profiles[task];
+    long work = works[task];
+    long finish = schedule.m_end;
+    long start = Long.MAX_VALUE;
+    long freeFloat = Long.MAX_VALUE;
+
+    for ( int s = network.getSuccStart( task ); s < network.getSuccEnd( task ); s++ )
+    {
+      int succ = network.getSuccTask( s );
+      if ( !network.isActive( succ ) )
+        continue;
+      var succProfile = m_profiles[succ];
+      long lag = -network.getSuccLag( s );
+      long limit;
+      switch ( network.getSuccType( s ) )
+      {
+        case CompiledNetwork.FS ->
+        {
+          finish = Math.min( finish, shift( succProfile, schedule.m_lateStart[succ], lag ) );
+          limit = shift( succProfile, schedule.m_earlyStart[succ], lag );
+          freeFloat = Math.min( freeFloat, between( profile, schedule.m_earlyFinish[task], limit ) );
+        }
+        case CompiledNetwork.SS ->
+        {
+          start = Math.min( start, shift( succProfile, schedule.m_lateStart[succ], lag ) );
+          limit = shift( succProfile, schedule.m_earlyStart[succ], lag );
+          freeFloat = Math.min( freeFloat, between( profile, schedule.m_earlyStart[task], limit ) );
+        }
+        case CompiledNetwork.FF ->
+        {
+          finish = Math.min( finish, shift( succProfile, schedule.m_lateFinish[succ], lag ) );
+          limit = shift( succProfile, schedule.m_earlyFinish[succ], lag );
+          freeFloat = Math.min( freeFloat, between( profile, schedule.m_earlyFinish[task], limit ) );
+        }
+        case CompiledNetwork.SF ->
+        {
+          start = Math.min( start, shift( succProfile, schedule.m_lateFinish[succ], lag ) );
+          limit = shift( succProfile, schedule.m_earlyFinish[succ], lag );
+          freeFloat = Math.min( freeFloat, between( profile, schedule.m_earlyStart[task], limit ) );
+        }
+      }
+    }
+
+    // start constraints may pull finish earlier
+    if ( work > 0 )
+    {
+      start = Math.min( start, shift( profile, finish, -work ) );
+      schedule.m_lateStart[task] = start;
+      schedule.m_lateFinish[task] = shift( profile, start, work );
+    }
+    else
+    {
+      start = Math.min( start, finish );
+      schedule.m_lateStart[task] = start;
+      schedule.m_lateFinish[task] = start;
+    }
+
+    // floats in working time of this task, free float to schedule end if no successors
+    if ( freeFloat == Long.MAX_VALUE )
+      freeFloat = between( profile, schedule.m_earlyFinish[task], schedule.m_end );
+    schedule.m_totalFloat[task] = between( profile, schedule.m_earlyStart[task], schedule.m_lateStart[task] );
+    schedule.m_freeFloat[task] = Math.max( freeFloat, 0L );
+  }
+
+  /******************************************* backward ******************************************/
+  private BitSet backward( BitSet dirty, BitSet changed )
+  {
+    // backward pass in reverse topological order from dirty tasks and predecessors of moved tasks
+    var schedule = m_schedule;
+    var network = m_network;
+    var floated = new BitSet( m_work.length );
+    var queued = new boolean[m_work.length];
+    var queue = new PriorityQueue<Integer>(
+        ( a, b ) -> Integer.compare( network.getPosition( b ), network.getPosition( a ) ) );
+    var seeds = (BitSet) dirty.clone();
+    seeds.or( changed );
+    for ( int t = changed.nextSetBit( 0 ); t >= 0; t = changed.nextSetBit( t + 1 ) )
+      for ( int e = network.getPredStart( t ); e < network.getPredEnd( t ); e++ )
+        seeds.set( network.getPredTask( e ) );
+    for ( int t = seeds.nextSetBit( 0 ); t >= 0; t = seeds.nextSetBit( t + 1 ) )
+      if ( network.isActive( t ) )
+      {
+        queued[t] = true;
+        queue.add( t );
+      }
+
+    while ( !queue.isEmpty() )
+    {
+      int t = queue.poll();
+      long start = schedule.m_lateStart[t];
+      long finish = schedule.m_lateFinish[t];
+      backward( t );
+      floated.set( t );
+      if ( start == schedule.m_lateStart[t] && finish == schedule.m_lateFinish[t] )
+        continue;
+
+      for ( int e = network.getPredStart( t ); e < network.getPredEnd( t ); e++ )
+      {
+        int pred = network.getPredTask( e );
+        if ( !queued[pred] && network.isActive( pred ) )
+        {
+          queued[pred] = true;
+          queue.add( pred );
+        }
+      }
+    }
+
+    // tasks whose float was recalculated
+    return floated;
+  }
+
+  /********************************************* end *********************************************/
+  private long end()
+  {
+    return end( m_schedule );
+  }
+
+  private long end( Schedule schedule )
+  {
+    // return latest early finish of any scheduled task
+    long end = Long.MIN_VALUE;
+    for ( int task : m_order )
+      end = Math.max( end, schedule.m_earlyFinish[task] );
+    return end;
+  }
+
+  /******************************************* simulate ******************************************/
+  void simulate( long[] work, Schedule schedule )
+  {
+    // serial forward & backward passes over prepared network with alternative work, allocating nothing
+    for ( int task : m_order )
+      forward( task, work, schedule );
+    schedule.m_end = end( schedule );
+    for ( int index = m_order.length - 1; index >= 0; index-- )
+      backward( m_order[index], work, schedule );
+  }
+
+  /******************************************* getOrder ******************************************/
+  int[] getOrder()
+  {
+    // return prepared active tasks in topological order
+    return m_order;
+  }
+
+  /******************************************* getWork *******************************************/
+  long[] getWork()
+  {
+    // return prepared working milliseconds needed by each task
+    return m_work;
+  }
+
+  /******************************************* toWorkMS ******************************************/
+  long toWorkMS( TimeSpan span )
+  {
+    // return working milliseconds of time-span by prepared plan calendar
+    return m_calendar.toWorkMS( span );
+  }
+
+  /********************************************* task ********************************************/
+  Task task( int index )
+  {
+    // return task values to schedule, a scenario's own copy if scenario has modified the task
+    return m_scenario == null ? m_tasks.get( index ) : m_scenario.getTask( index );
+  }
+
+  /******************************************** apply ********************************************/
+  private void apply( int task )
+  {
+    // set early dates as task start & end, except for fixed period tasks
+    if ( isFixed( task ) )
+      return;
+
+    // start-on tasks keep their start as it is the constraint the next schedule starts from
+    var t = m_tasks.get( task );
+    if ( !isStartOn( m_network.getType( task ) ) || m_network.getStartOn( task ) == Long.MIN_VALUE )
+      t.setValue( Task.FIELD.Start.ordinal(), m_schedule.getEarlyStart( task ), true );
+    t.setValue( Task.FIELD.End.ordinal(), m_schedule.getEarlyFinish( task ), true );
+  }
+
+  /******************************************** units ********************************************/
+  private double units( List<TaskResources.Assignment> assignments )
+  {
+    // return number of resource units assigned, at least one
+    double units = 0.0;
+    for ( var assignment : assignments )
+      if ( assignment.allAvailable() )
+        for ( var resource : m_plan.getResources().findByTag( assignment.tag() ) )
+          units += resource.getAvailable();
+      else
+        units += assignment.quantity();
+    return units > 0.0 ? units : 1.0;
+  }
+
+  /******************************************* isFixed *******************************************/
+  private boolean isFixed( int task )
+  {
+    // return true if task is a fixed period task with both its start & end set by user
+    return m_network.getType( task ) == TaskType.FIXED_PERIOD && m_network.getStartOn( task ) != Long.MIN_VALUE
+        && m_network.getEndOn( task ) != Long.MIN_VALUE;
+  }
+
+  /****************************************** isStartOn ******************************************/
+  private static boolean isStartOn( TaskType type )
+  {
+    return type == TaskType.START_ON_DURATION || type == TaskType.START_ON_WORK;
+  }
+
+  /******************************************** shift ********************************************/
+  private static long shift( WorkProfile profile, long ms, long work )
+  {
+    // move instant by working milliseconds, leaving beyond-calendar markers alone
+    if ( ms == Long.MAX_VALUE || ms == Long.MIN_VALUE || work == 0 )
+      return ms;
+    return profile.addWork( ms, work );
+  }
+
+  /******************************************** next *********************************************/
+  private static long next( WorkProfile profile, long ms )
+  {
+    // move instant to when profile is next working
+    if ( ms == Long.MAX_VALUE || ms == Long.MIN_VALUE )
+      return ms;
+    return profile.nextWorkingInstant( ms );
+  }
+
+  /******************************************* between *******************************************/
+  private static long between( WorkProfile profile, long from, long to )
+  {
+    // working milliseconds between instants, treating beyond-calendar markers as no float
+    if ( from == Long.MAX_VALUE || from == Long.MIN_VALUE || to == Long.MAX_VALUE || to == Long.MIN_VALUE )
+      return 0L;
+    return profile.workBetween( from, to );
+  }
+
+}
@@ -0,0 +1,641 @@
+/**************************************************************************
+ *  Copyright (C) 2026 by Richard Crook                                   *
+ *  https://github.com/dazzle50/JPlannerFX                                *
+ *                                                                        *
+ *  This program is free software: you can redistribute it and/or modify  *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  This program is distributed in the hope that it will be useful,       *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with this program.  If not, see http://www.gnu.org/licenses/    *
+ **************************************************************************/
+
+package rjc.jplanner.plan.tasks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import rjc.jplanner.plan.TimeSpan;
+import rjc.jplanner.plan.VersionStamp;
+import rjc.jplanner.plan.calenders.CompiledCalendar;
+import rjc.table.data.types.DateTime;
+
+/*************************************************************************************************/
+/******** Primitive compressed-sparse-row snapshot of task network, recompiled row by row ********/
+/*************************************************************************************************/
+
+public class CompiledNetwork
+{
+  public static final byte               FS        = 0; // finish-start, dependency types match DependencyType ordinals
+  public static final byte               SS        = 1; // start-start
+  public static final byte               FF        = 2; // finish-finish
+  public static final byte               SF        = 3; // start-finish
+
+  private static final byte              ACTIVE    = 1; // task is scheduled (not blank, summary or task 0)
+  private static final byte              RESOURCED = 2; // task has resources so needs its own work profile
+  private static final byte              PER_UNIT  = 4; // task work is shared over its assigned resource units
+  private static final TaskType[]        TYPES     = TaskType.values();
+
+  private CompiledCalendar               m_calendar;  // calendar converting durations, work & lags to working ms
+  private Task[]                         m_taskAt;    // task at each row when compiled
+  private IdentityHashMap<Task, Integer> m_rows;      // row of each task, never changed once built
+  private long                           m_stamp;     // version stamp of latest full compile
+  private long[]                         m_version;   // version stamp of each row's task values when compiled
+  private Predecessors[]                 m_predsAt;   // predecessors of each row when compiled
+
+  private byte[]                         m_flags;     // active, resourced & per-unit flags of each row
+  private byte[]                         m_type;      // task-type ordinal of each row
+  private long[]                         m_work;      // working milliseconds of each row, before sharing over units
+  private long[]                         m_startOn;   // user start (or Long.MIN_VALUE) of each row
+  private long[]                         m_endOn;     // user end (or Long.MIN_VALUE) of each row
+
+  private NetworkEdges                   m_preds;     // predecessor edges of each row
+  private NetworkEdges                   m_succs;     // successor edges of each row, same types & lags
+  private BitSet                         m_touched;   // rows with an edge added or removed since last taken
+
+  private int[]                          m_order;     // rows in topological order, or null if not yet known
+  private int[]                          m_position;  // position of each row in topological order
+  private int[]                          m_mark;      // latest search to reach each row
+  private int                            m_search;    // number of latest search
+  private boolean                        m_pinned;    // true if copy for reading off the plan's thread
+
+  /**************************************** constructor ******************************************/
+  public CompiledNetwork( List<Task> tasks, IntFunction<Task> values, CompiledCalendar calendar )
+  {
+    // compile every row, values gives the task values for each row (e.g. a scenario's copy)
+    compile( tasks, values, calendar );
+  }
+
+  /**************************************** constructor ******************************************/
+  private CompiledNetwork( CompiledNetwork network )
+  {
+    // copy sharing nothing the original changes in place, a full compile replaces task list & row map
+    int count = network.m_taskAt.length;
+    m_calendar = network.m_calendar;
+    m_taskAt = network.m_taskAt;
+    m_rows = network.m_rows;
+    m_stamp = network.m_stamp;
+    m_version = network.m_version.clone();
+    m_predsAt = network.m_predsAt.clone();
+    m_flags = network.m_flags.clone();
+    m_type = network.m_type.clone();
+    m_work = network.m_work.clone();
+    m_startOn = network.m_startOn.clone();
+    m_endOn = network.m_endOn.clone();
+    m_preds = new NetworkEdges( network.m_preds );
+    m_succs = new NetworkEdges( network.m_succs );
+    m_touched = new BitSet( count );
+    m_order = network.m_order == null ? null : network.m_order.clone();
+    m_position = network.m_position.clone();
+    m_mark = new int[count];
+    m_pinned = true;
+  }
+
+  /******************************************* snapshot ******************************************/
+  public CompiledNetwork snapshot()
+  {
+    // return copy fixed as network is now, ordered so it can be read from any thread while this is edited
+    if ( m_order == null )
+      order();
+    return new CompiledNetwork( this );
+  }
+
+  /******************************************* update ********************************************/
+  public void update( List<Task> tasks, IntFunction<Task> values, CompiledCalendar calendar )
+  {
+    // recompile only rows whose task values have changed, unless calendar or task list has changed
+    checkPinned();
+    int count = tasks.size();
+    if ( calendar != m_calendar || count != m_taskAt.length )
+    {
+      compile( tasks, values, calendar );
+      return;
+    }
+    for ( int row = 0; row < count; row++ )
+      if ( tasks.get( row ) != m_taskAt[row] )
+      {
+        compile( tasks, values, calendar );
+        return;
+      }
+
+    // predecessor edges only need relinking for rows with a different predecessors object
+    for ( int row = 0; row < count; row++ )
+    {
+      var task = values.apply( row );
+      if ( task.getVersion() == m_version[row] )
+        continue;
+      compileRow( row, task );
+      if ( task.getPredecessors() != m_predsAt[row] )
+        relink( row, task.getPredecessors() );
+    }
+  }
+
+  /******************************************* relink ********************************************/
+  public void relink( Task task )
+  {
+    // relink edges of listed task whose predecessors have just changed, ahead of any update
+    checkPinned();
+    Integer row = m_rows.get( task );
+    if ( row != null && task.getPredecessors() != m_predsAt[row] )
+      relink( row, task.getPredecessors() );
+  }
+
+  /***************************************** checkPinned *****************************************/
+  private void checkPinned()
+  {
+    // a pinned copy may be being read on another thread, so must never change
+    if ( m_pinned )
+      throw new IllegalStateException( "Pinned network copy cannot be changed" );
+  }
+
+  /******************************************* compile *******************************************/
+  private void compile( List<Task> tasks, IntFunction<Task> values, CompiledCalendar calendar )
+  {
+    // compile every row, dependencies reference listed tasks even when values come from copies
+    int count = tasks.size();
+    m_calendar = calendar;
+    m_taskAt = tasks.toArray( new Task[count] );
+    m_rows = new IdentityHashMap<>( count * 2 );
+    m_stamp = VersionStamp.next();
+    m_version = new long[count];
+    m_predsAt = new Predecessors[count];
+    m_flags = new byte[count];
+    m_type = new byte[count];
+    m_work = new long[count];
+    m_startOn = new long[count];
+    m_endOn = new long[count];
+    m_touched = new BitSet( count );
+    m_mark = new int[count];
+    for ( int row = 0; row < count; row++ )
+      m_rows.put( m_taskAt[row], row );
+
+    int[] sizes = new int[count];
+    for ( int row = 0; row < count; row++ )
+    {
+      var task = values.apply( row );
+      compileRow( row, task );
+      m_predsAt[row] = task.getPredecessors();
+      sizes[row] = m_predsAt[row] == null ? 0 : m_predsAt[row].size();
+    }
+
+    // edges to tasks no longer listed are dropped, successor edges mirror predecessor edges
+    m_preds = new NetworkEdges( sizes );
+    Arrays.fill( sizes, 0 );
+    for ( int row = 0; row < count; row++ )
+      for ( int dep = 0; m_predsAt[row] != null && dep < m_predsAt[row].size(); dep++ )
+      {
+        var dependency = m_predsAt[row].get( dep );
+        Integer pred = m_rows.get( dependency.task );
+        if ( pred == null )
+          continue;
+        m_preds.add( row, pred, (byte) dependency.type.ordinal(), lag( dependency ) );
+        sizes[pred]++;
+      }
+
+    m_succs = new NetworkEdges( sizes );
+    for ( int row = 0; row < count; row++ )
+      for ( int e = m_preds.start( row ); e < m_preds.end( row ); e++ )
+        m_succs.add( m_preds.row( e ), row, m_preds.type( e ), m_preds.lag( e ) );
+
+    m_order = null;
+    m_position = new int[count];
+  }
+
+  /***************************************** compileRow ******************************************/
+  private void compileRow( int row, Task task )
+  {
+    // gather per-row scheduling inputs as primitives
+    byte flags = 0;
+    if ( row > 0 && !task.isBlank() && !task.isSummary() )
+      flags |= ACTIVE;
+    if ( task.getValue( Task.FIELD.Resources.ordinal() ) != null )
+      flags |= RESOURCED;
+
+    // fixed work tasks spread work over assigned resource units, others use duration
+    var type = task.getTaskType();
+    long work = 0L;
+    if ( ( type == TaskType.ASAP_FIXED_WORK || type == TaskType.START_ON_WORK )
+        && task.getValue( Task.FIELD.Work.ordinal() ) instanceof TimeSpan span )
+    {
+      work = m_calendar.toWorkMS( span );
+      flags |= PER_UNIT;
+    }
+    else if ( task.getValue( Task.FIELD.Duration.ordinal() ) instanceof TimeSpan span )
+      work = Math.max( m_calendar.toWorkMS( span ), 0L );
+
+    m_version[row] = task.getVersion();
+    m_flags[row] = flags;
+    m_type[row] = (byte) type.ordinal();
+    m_work[row] = work;
+    m_startOn[row] = millis( task.getValue( Task.FIELD.Start.ordinal() ) );
+    m_endOn[row] = millis( task.getValue( Task.FIELD.End.ordinal() ) );
+  }
+
+  /******************************************* relink ********************************************/
+  private void relink( int row, Predecessors preds )
+  {
+    // replace edges of row in place, keeping successor edges and topological order in step
+    m_touched.set( row );
+    for ( int e = m_preds.start( row ); e < m_preds.end( row ); e++ )
+    {
+      m_succs.remove( m_preds.row( e ), row );
+      m_touched.set( m_preds.row( e ) );
+    }
+
+    m_predsAt[row] = preds;
+    m_preds.clear( row, preds == null ? 0 : preds.size() );
+    for ( int dep = 0; preds != null && dep < preds.size(); dep++ )
+    {
+      var dependency = preds.get( dep );
+      Integer pred = m_rows.get( dependency.task );
+      if ( pred == null )
+        continue;
+
+      byte type = (byte) dependency.type.ordinal();
+      long lag = lag( dependency );
+      m_preds.add( row, pred, type, lag );
+      m_succs.add( pred, row, type, lag );
+      m_touched.set( pred );
+      if ( pred == row )
+        m_order = null;
+      else if ( m_order != null && m_position[pred] > m_position[row] )
+        reorder( pred, row );
+    }
+  }
+
+  /******************************************* reorder *******************************************/
+  private void reorder( int pred, int succ )
+  {
+    // Pearce-Kelly reorder so pred is before succ, only touching rows positioned between them
+    int lower = m_position[succ];
+    int upper = m_position[pred];
+    int[] forward = reach( succ, upper, true, pred );
+    if ( forward == null )
+    {
+      // new edge closes a cycle, so there is no order until it is removed
+      m_order = null;
+      return;
+    }
+    int[] backward = reach( pred, lower, false, -1 );
+
+    // reuse the same positions, backward rows first then forward rows, each keeping relative order
+    for ( int index = 0; index < forward.length; index++ )
+      forward[index] = m_position[forward[index]];
+    for ( int index = 0; index < backward.length; index++ )
+      backward[index] = m_position[backward[index]];
+    Arrays.sort( forward );
+    Arrays.sort( backward );
+
+    int[] rows = new int[backward.length + forward.length];
+    int[] positions = new int[rows.length];
+    for ( int index = 0; index < backward.length; index++ )
+      rows[index] = m_order[backward[index]];
+    for ( int index = 0; index < forward.length; index++ )
+      rows[backward.length + index] = m_order[forward[index]];
+    System.arraycopy( backward, 0, positions, 0, backward.length );
+    System.arraycopy( forward, 0, positions, backward.length, forward.length );
+    Arrays.sort( positions );
+
+    for ( int index = 0; index < rows.length; index++ )
+    {
+      m_order[positions[index]] = rows[index];
+      m_position[rows[index]] = positions[index];
+    }
+  }
+
+  /******************************************** reach ********************************************/
+  private int[] reach( int from, int bound, boolean forward, int target )
+  {
+    // return rows reachable from row through successors (forward) or predecessors (backward) without
+    // passing position bound, or null if target is reached
+    var edges = forward ? m_succs : m_preds;
+    int search = ++m_search;
+    int[] found = new int[16];
+    int size = 0;
+    found[size++] = from;
+    m_mark[from] = search;
+    for ( int next = 0; next < size; next++ )
+    {
+      int row = found[next];
+      for ( int e = edges.start( row ); e < edges.end( row ); e++ )
+      {
+        int other = edges.row( e );
+        if ( other == target )
+          return null;
+        if ( m_mark[other] == search || ( forward ? m_position[other] > bound : m_position[other] < bound ) )
+          continue;
+
+        m_mark[other] = search;
+        if ( size == found.length )
+          found = Arrays.copyOf( found, size * 2 );
+        found[size++] = other;
+      }
+    }
+    return Arrays.copyOf( found, size );
+  }
+
+  /******************************************** order ********************************************/
+  private int order()
+  {
+    // topological order of every row by Kahn's algorithm, O(rows + edges), returning number of rows left
+    // unordered by cycles
+    int count = m_taskAt.length;
+    int[] inDegree = new int[count];
+    int[] order = new int[count];
+    int tail = 0;
+    for ( int row = 0; row < count; row++ )
+    {
+      inDegree[row] = m_preds.end( row ) - m_preds.start( row );
+      if ( inDegree[row] == 0 )
+        order[tail++] = row;
+    }
+
+    // queue is the order array itself, rows without predecessors first
+    for ( int head = 0; head < tail; head++ )
+    {
+      int row = order[head];
+      for ( int s = m_succs.start( row ); s < m_succs.end( row ); s++ )
+        if ( --inDegree[m_succs.row( s )] == 0 )
+          order[tail++] = m_succs.row( s );
+    }
+
+    if ( tail < count )
+      return count - tail;
+
+    for ( int position = 0; position < count; position++ )
+      m_position[order[position]] = position;
+    m_order = order;
+    return 0;
+  }
+
+  /***************************************** isCircular ******************************************/
+  public boolean isCircular( int row, Predecessors preds )
+  {
+    // new predecessors of row are circular if row already leads to any of them through its successors
+    if ( m_order == null )
+      order();
+    int target = ++m_search;
+    int upper = Integer.MIN_VALUE;
+    for ( int dep = 0; preds != null && dep < preds.size(); dep++ )
+    {
+      Integer pred = m_rows.get( preds.get( dep ).task );
+      if ( pred == null )
+        continue;
+      if ( pred == row )
+        return true;
+      m_mark[pred] = target;
+      upper = Math.max( upper, m_order == null ? Integer.MAX_VALUE : m_position[pred] );
+    }
+    if ( upper == Integer.MIN_VALUE )
+      return false;
+
+    // rows after every new predecessor in topological order cannot lead to any of them
+    int search = ++m_search;
+    int[] stack = new int[16];
+    int size = 0;
+    stack[size++] = row;
+    m_mark[row] = search;
+    while ( size > 0 )
+    {
+      int next = stack[--size];
+      for ( int s = m_succs.start( next ); s < m_succs.end( next ); s++ )
+      {
+        int succ = m_succs.row( s );
+        if ( m_mark[succ] == target )
+          return true;
+        if ( m_mark[succ] == search || ( m_order != null && m_position[succ] > upper ) )
+          continue;
+
+        m_mark[succ] = search;
+        if ( size == stack.length )
+          stack = Arrays.copyOf( stack, size * 2 );
+        stack[size++] = succ;
+      }
+    }
+    return false;
+  }
+
+  /**************************************** getSuccessors ****************************************/
+  public List<Dependency> getSuccessors( Task task )
+  {
+    // return dependencies on task in row order, each referencing the dependent task
+    Integer row = m_rows.get( task );
+    if ( row == null )
+      return List.of();
+
+    int search = ++m_search;
+    int[] succs = new int[m_succs.end( row ) - m_succs.start( row )];
+    int size = 0;
+    for ( int s = m_succs.start( row ); s < m_succs.end( row ); s++ )
+      if ( m_mark[m_succs.row( s )] != search )
+      {
+        m_mark[m_succs.row( s )] = search;
+        succs[size++] = m_succs.row( s );
+      }
+    Arrays.sort( succs, 0, size );
+
+    var successors = new ArrayList<Dependency>( size );
+    for ( int index = 0; index < size; index++ )
+    {
+      var preds = m_predsAt[succs[index]];
+      for ( int dep = 0; dep < preds.size(); dep++ )
+      {
+        var dependency = preds.get( dep );
+        if ( dependency.task == task )
+          successors.add( new Dependency( m_taskAt[succs[index]], dependency.type, dependency.lag100ths,
+              dependency.lagUnit ) );
+      }
+    }
+    return successors;
+  }
+
+  /***************************************** takeTouched *****************************************/
+  public BitSet takeTouched()
+  {
+    // return and forget rows with an edge added or removed since last taken
+    var touched = m_touched;
+    m_touched = new BitSet( m_taskAt.length );
+    return touched;
+  }
+
+  /********************************************* lag *********************************************/
+  private long lag( Dependency dependency )
+  {
+    // return lag of dependency in working milliseconds, negative for lead
+    return m_calendar.toWorkMS( dependency.lag100ths, dependency.lagUnit );
+  }
+
+  /******************************************* millis ********************************************/
+  private static long millis( Object value )
+  {
+    // return milliseconds of date-time value, or Long.MIN_VALUE if not set
+    return value instanceof DateTime dt ? dt.toMilliseconds() : Long.MIN_VALUE;
+  }
+
+  /******************************************** size *********************************************/
+  public int size()
+  {
+    return m_taskAt.length;
+  }
+
+  /******************************************* getStamp ******************************************/
+  public long getStamp()
+  {
+    // return version stamp of latest full compile, changes if task list or calendar changed
+    return m_stamp;
+  }
+
+  /******************************************* getRow ********************************************/
+  public int getRow( Task task )
+  {
+    // return row of listed task, or -1 if not listed when compiled
+    Integer row = m_rows.get( task );
+    return row == null ? -1 : row;
+  }
+
+  /******************************************* getOrder ******************************************/
+  public int[] getOrder()
+  {
+    // return every row in topological order, shared so must not be modified
+    int unordered = m_order == null ? order() : 0;
+    if ( unordered > 0 )
+      throw new IllegalStateException( "Circular dependency between " + unordered + " tasks" );
+    return m_order;
+  }
+
+  /***************************************** getPosition *****************************************/
+  public int getPosition( int row )
+  {
+    // return position of row in topological order, valid once order has been got
+    return m_position[row];
+  }
+
+  /****************************************** isActive *******************************************/
+  public boolean isActive( int row )
+  {
+    // return true if row is scheduled (not blank, summary or task 0)
+    return ( m_flags[row] & ACTIVE ) != 0;
+  }
+
+  /***************************************** isResourced *****************************************/
+  public boolean isResourced( int row )
+  {
+    // return true if row has resources, so needs its own work profile
+    return ( m_flags[row] & RESOURCED ) != 0;
+  }
+
+  /****************************************** isPerUnit ******************************************/
+  public boolean isPerUnit( int row )
+  {
+    // return true if row work is to be shared over its assigned resource units
+    return ( m_flags[row] & PER_UNIT ) != 0;
+  }
+
+  /******************************************* getType *******************************************/
+  public TaskType getType( int row )
+  {
+    return TYPES[m_type[row]];
+  }
+
+  /******************************************* getWork *******************************************/
+  public long getWork( int row )
+  {
+    // return working milliseconds of row, before any sharing over resource units
+    return m_work[row];
+  }
+
+  /****************************************** getStartOn *****************************************/
+  public long getStartOn( int row )
+  {
+    // return user start milliseconds of row, or Long.MIN_VALUE if not set
+    return m_startOn[row];
+  }
+
+  /******************************************* getEndOn ******************************************/
+  public long getEndOn( int row )
+  {
+    // return user end milliseconds of row, or Long.MIN_VALUE if not set
+    return m_endOn[row];
+  }
+
+  /***************************************** getPredStart ****************************************/
+  public int getPredStart( int row )
+  {
+    // return first predecessor edge of row
+    return m_preds.start( row );
+  }
+
+  /****************************************** getPredEnd *****************************************/
+  public int getPredEnd( int row )
+  {
+    // return end of predecessor edges of row
+    return m_preds.end( row );
+  }
+
+  /***************************************** getPredTask *****************************************/
+  public int getPredTask( int edge )
+  {
+    // return predecessor row of edge
+    return m_preds.row( edge );
+  }
+
+  /***************************************** getPredType *****************************************/
+  public byte getPredType( int edge )
+  {
+    // return dependency type of edge, one of FS, SS, FF or SF
+    return m_preds.type( edge );
+  }
+
+  /****************************************** getPredLag *****************************************/
+  public long getPredLag( int edge )
+  {
+    // return lag of edge in working milliseconds, negative for lead
+    return m_preds.lag( edge );
+  }
+
+  /***************************************** getSuccStart ****************************************/
+  public int getSuccStart( int row )
+  {
+    // return first successor edge of row
+    return m_succs.start( row );
+  }
+
+  /****************************************** getSuccEnd *****************************************/
+  public int getSuccEnd( int row )
+  {
+    // return end of successor edges of row
+    return m_succs.end( row );
+  }
+
+  /***************************************** getSuccTask *****************************************/
+  public int getSuccTask( int edge )
+  {
+    // return successor row of edge
+    return m_succs.row( edge );
+  }
+
+  /***************************************** getSuccType *****************************************/
+  public byte getSuccType( int edge )
+  {
+    // return dependency type of edge, one of FS, SS, FF or SF
+    return m_succs.type( edge );
+  }
+
+  /****************************************** getSuccLag *****************************************/
+  public long getSuccLag( int edge )
+  {
+    // return lag of edge in working milliseconds, negative for lead
+    return m_succs.lag( edge );
+  }
+
+}
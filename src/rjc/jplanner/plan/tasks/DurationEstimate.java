@@ -0,0 +1,59 @@
+/**************************************************************************
+ *  Copyright (C) 2026 by Richard Crook                                   *
+ *  https://github.com/dazzle50/JPlannerFX                                *
+ *                                                                        *
+ *  This program is free software: you can redistribute it and/or modify  *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  This program is distributed in the hope that it will be useful,       *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with this program.  If not, see http://www.gnu.org/licenses/    *
+ **************************************************************************/
+
+package rjc.jplanner.plan.tasks;
+
+import rjc.jplanner.plan.TimeSpan;
+
+/*************************************************************************************************/
+/************ Three-point task duration estimate: optimistic, most likely & pessimistic **********/
+/*************************************************************************************************/
+
+public record DurationEstimate( TimeSpan optimistic, TimeSpan likely, TimeSpan pessimistic )
+{
+  /**************************************** constructor ******************************************/
+  public DurationEstimate
+  {
+    // all three points are needed, and in order when they share units
+    if ( optimistic == null || likely == null || pessimistic == null )
+      throw new NullPointerException( "Estimate needs optimistic, most likely & pessimistic durations" );
+    if ( optimistic.getUnit() == likely.getUnit() && likely.getUnit() == pessimistic.getUnit()
+        && ( optimistic.getHundredths() > likely.getHundredths()
+            || likely.getHundredths() > pessimistic.getHundredths() ) )
+      throw new IllegalArgumentException( "Estimate not in optimistic, most likely, pessimistic order" );
+  }
+
+  /******************************************** parse ********************************************/
+  public static DurationEstimate parse( String text )
+  {
+    // parse three durations separated by slashes, e.g. "2d/3d/5d", throwing exception if invalid
+    String[] points = text.split( "/" );
+    if ( points.length != 3 )
+      throw new IllegalArgumentException( "Estimate needs three durations separated by '/' (" + text + ")" );
+    return new DurationEstimate( TimeSpan.parse( points[0] ), TimeSpan.parse( points[1] ),
+        TimeSpan.parse( points[2] ) );
+  }
+
+  /****************************************** toString *******************************************/
+  @Override
+  public String toString()
+  {
+    return optimistic + "/" + likely + "/" + pessimistic;
+  }
+
+}
@@ -0,0 +1,216 @@
+/**************************************************************************
+ *  Copyright (C) 2026 by Richard Crook                                   *
+ *  https://github.com/dazzle50/JPlannerFX                                *
+ *                                                                        *
+ *  This program is free software: you can redistribute it and/or modify  *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  This program is distributed in the hope that it will be useful,       *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with this program.  If not, see http://www.gnu.org/licenses/    *
+ **************************************************************************/
+
+package rjc.jplanner.plan.tasks;
+
+import java.util.Arrays;
+
+/*************************************************************************************************/
+/******* Dependency edges grouped by row, each row's edges contiguous with room to change ********/
+/*************************************************************************************************/
+
+class NetworkEdges
+{
+  private static final int MIN_WASTE = 1024; // fewest abandoned entries worth compacting
+
+  private int[]            m_start;          // first entry of each row
+  private int[]            m_end;            // end of each row's entries
+  private int[]            m_limit;          // end of space reserved for each row's entries
+  private int[]            m_row;            // other row of each entry
+  private byte[]           m_type;           // dependency type of each entry
+  private long[]           m_lag;            // lag of each entry in working milliseconds
+  private int              m_used;           // entry space in use, beyond is free
+  private int              m_wasted;         // entry space abandoned by rows that outgrew their own
+
+  /**************************************** constructor ******************************************/
+  NetworkEdges( int[] sizes )
+  {
+    // reserve space for expected number of entries of each row, rows start empty
+    int rows = sizes.length;
+    m_start = new int[rows];
+    m_end = new int[rows];
+    m_limit = new int[rows];
+    int entry = 0;
+    for ( int row = 0; row < rows; row++ )
+    {
+      m_start[row] = entry;
+      m_end[row] = entry;
+      entry += sizes[row];
+      m_limit[row] = entry;
+    }
+
+    m_row = new int[entry];
+    m_type = new byte[entry];
+    m_lag = new long[entry];
+    m_used = entry;
+  }
+
+  /**************************************** constructor ******************************************/
+  NetworkEdges( NetworkEdges edges )
+  {
+    // copy of edges with every row full, so later changes to either never reach the other
+    int rows = edges.m_start.length;
+    m_start = new int[rows];
+    m_end = new int[rows];
+    m_limit = new int[rows];
+    int length = 0;
+    for ( int row = 0; row < rows; row++ )
+      length += edges.m_end[row] - edges.m_start[row];
+    m_row = new int[length];
+    m_type = new byte[length];
+    m_lag = new long[length];
+
+    int entry = 0;
+    for ( int row = 0; row < rows; row++ )
+    {
+      int size = edges.m_end[row] - edges.m_start[row];
+      System.arraycopy( edges.m_row, edges.m_start[row], m_row, entry, size );
+      System.arraycopy( edges.m_type, edges.m_start[row], m_type, entry, size );
+      System.arraycopy( edges.m_lag, edges.m_start[row], m_lag, entry, size );
+      m_start[row] = entry;
+      entry += size;
+      m_end[row] = entry;
+      m_limit[row] = entry;
+    }
+    m_used = entry;
+  }
+
+  /******************************************** start ********************************************/
+  int start( int row )
+  {
+    return m_start[row];
+  }
+
+  /********************************************* end *********************************************/
+  int end( int row )
+  {
+    return m_end[row];
+  }
+
+  /********************************************* row *********************************************/
+  int row( int entry )
+  {
+    return m_row[entry];
+  }
+
+  /******************************************** type *********************************************/
+  byte type( int entry )
+  {
+    return m_type[entry];
+  }
+
+  /********************************************* lag *********************************************/
+  long lag( int entry )
+  {
+    return m_lag[entry];
+  }
+
+  /********************************************* add *********************************************/
+  void add( int row, int other, byte type, long lag )
+  {
+    // append entry to row, moving row to free space if it has outgrown its own
+    if ( m_end[row] == m_limit[row] )
+      move( row, Math.max( 2, 2 * ( m_end[row] - m_start[row] ) ) );
+
+    int entry = m_end[row]++;
+    m_row[entry] = other;
+    m_type[entry] = type;
+    m_lag[entry] = lag;
+  }
+
+  /******************************************* remove ********************************************/
+  void remove( int row, int other )
+  {
+    // remove every entry of row to other row, filling each gap with row's last entry
+    int entry = m_start[row];
+    while ( entry < m_end[row] )
+      if ( m_row[entry] == other )
+      {
+        int last = --m_end[row];
+        m_row[entry] = m_row[last];
+        m_type[entry] = m_type[last];
+        m_lag[entry] = m_lag[last];
+      }
+      else
+        entry++;
+  }
+
+  /******************************************** clear ********************************************/
+  void clear( int row, int size )
+  {
+    // remove all entries of row, making sure it has space for size entries
+    m_end[row] = m_start[row];
+    if ( m_limit[row] - m_start[row] < size )
+      move( row, size );
+  }
+
+  /******************************************** move *********************************************/
+  private void move( int row, int space )
+  {
+    // give row space at end of used space, compacting first if much space has been abandoned
+    if ( m_wasted > MIN_WASTE && m_wasted > m_used / 2 )
+      compact();
+    if ( m_used + space > m_row.length )
+    {
+      int length = Math.max( m_used + space, m_row.length + ( m_row.length >> 1 ) );
+      m_row = Arrays.copyOf( m_row, length );
+      m_type = Arrays.copyOf( m_type, length );
+      m_lag = Arrays.copyOf( m_lag, length );
+    }
+
+    int size = m_end[row] - m_start[row];
+    System.arraycopy( m_row, m_start[row], m_row, m_used, size );
+    System.arraycopy( m_type, m_start[row], m_type, m_used, size );
+    System.arraycopy( m_lag, m_start[row], m_lag, m_used, size );
+    m_wasted += m_limit[row] - m_start[row];
+    m_start[row] = m_used;
+    m_end[row] = m_used + size;
+    m_used += space;
+    m_limit[row] = m_used;
+  }
+
+  /******************************************* compact *******************************************/
+  private void compact()
+  {
+    // copy every row's space into new arrays in row order, dropping abandoned space
+    int length = m_used - m_wasted + ( m_row.length - m_used );
+    var rows = new int[length];
+    var types = new byte[length];
+    var lags = new long[length];
+    int entry = 0;
+    for ( int row = 0; row < m_start.length; row++ )
+    {
+      int size = m_end[row] - m_start[row];
+      System.arraycopy( m_row, m_start[row], rows, entry, size );
+      System.arraycopy( m_type, m_start[row], types, entry, size );
+      System.arraycopy( m_lag, m_start[row], lags, entry, size );
+      int space = m_limit[row] - m_start[row];
+      m_start[row] = entry;
+      m_end[row] = entry + size;
+      entry += space;
+      m_limit[row] = entry;
+    }
+
+    m_row = rows;
+    m_type = types;
+    m_lag = lags;
+    m_used = entry;
+    m_wasted = 0;
+  }
+
+}
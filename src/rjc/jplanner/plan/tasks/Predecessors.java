@@ -84,6 +84,8 @@ public class Predecessors
       var task = tasks.get( taskIndex );
       if ( task.isBlank() )
         throw new IllegalArgumentException( "Task " + taskIndex + " is blank" );
+      if ( task.isSummary() )
+        throw new IllegalArgumentException( "Task " + taskIndex + " is a summary" );
       if ( !seenTasks.add( task ) )
         throw new IllegalArgumentException( "Duplicate predecessor task: " + taskIndex );
 
@@ -191,24 +193,23 @@ public class Predecessors
   /************************************* hasCircularReference ************************************/
   public boolean hasCircularReference( Task task )
   {
-    // circular reference exists if specified task is a predecessor of itself, directly or indirectly through other predecessors
+    // circular reference exists if specified task is already an ancestor of any of these predecessors
     if ( m_dependencies == null || task == null )
       return false;
-
-    // check each dependency for circular reference to specified task
     for ( var dep : m_dependencies )
-    {
-      // if dependency task is specified task, circular reference exists
       if ( dep.task == task )
         return true;
 
-      // if dependency task has predecessors, check them for circular reference to specified task
-      if ( dep.task.getValue( Task.FIELD.Predecessors.ordinal() ) instanceof Predecessors preds )
-        if ( preds.hasCircularReference( task ) )
-          return true;
-    }
+    // indirect references are searched over the compiled network of listed tasks
+    var tasks = m_weakTasks.get();
+    return tasks != null && tasks.isCircular( task, this );
+  }
 
-    return false;
+  /******************************************** get **********************************************/
+  public Dependency get( int index )
+  {
+    // return dependency at index
+    return m_dependencies[index];
   }
 
   /******************************************* size **********************************************/
@@ -18,7 +18,10 @@
 
 package rjc.jplanner.plan.tasks;
 
+import java.util.Objects;
+
 import rjc.jplanner.plan.TimeSpan;
+import rjc.jplanner.plan.VersionStamp;
 import rjc.table.Utils;
 import rjc.table.data.types.DateTime;
 
@@ -28,41 +31,64 @@ import rjc.table.data.types.DateTime;
 
 public class Task
 {
-  private String        m_title;        // free text title
-  private TimeSpan      m_duration;     // duration of task
-  private DateTime      m_start;        // start date-time of task
-  private DateTime      m_end;          // end date-time of task
-  private TimeSpan      m_work;         // work effort for task
-  private Predecessors  m_predecessors; // task predecessors
-  private TaskResources m_resources;    // resources allocated to task
-  private TaskType      m_type;         // task type
-  private int           m_priority;     // overall task priority (0 to 999)
-  private DateTime      m_deadline;     // task warning deadline
-  private String        m_cost;         // calculated cost based on resource use
-  private String        m_comment;      // free text comment
-
-  @SuppressWarnings( "unused" ) // TODO: remove when implemented
-  private int           m_indent;       // task indent level, zero for no indent
-  @SuppressWarnings( "unused" ) // TODO: remove when implemented
-  private int           m_summaryStart; // index of this task's summary, ultimately task 0
-  @SuppressWarnings( "unused" ) // TODO: remove when implemented
-  private int           m_summaryEnd;   // if summary, index of summary end, otherwise -1
+  private String           m_title;        // free text title
+  private TimeSpan         m_duration;     // duration of task
+  private DateTime         m_start;        // start date-time of task
+  private DateTime         m_end;          // end date-time of task
+  private TimeSpan         m_work;         // work effort for task
+  private Predecessors     m_predecessors; // task predecessors
+  private TaskResources    m_resources;    // resources allocated to task
+  private TaskType         m_type;         // task type
+  private int              m_priority;     // overall task priority (0 to 999)
+  private DateTime         m_deadline;     // task warning deadline
+  private Double           m_cost;         // calculated cost based on resource use, rolled up for summaries
+  private String           m_comment;      // free text comment
+  private DurationEstimate m_estimate;     // optional three-point duration estimate for risk analysis
+
+  private int              m_indent;       // task indent level, zero for no indent
+  private int              m_summaryStart; // index of this task's summary, ultimately task 0
+  private int              m_summaryEnd;   // if summary, index of summary end, otherwise -1
+  private long             m_version;      // version stamp, changes on every committed edit
 
   public enum FIELD
   {
-    Title, Duration, Start, End, Work, Predecessors, Resources, Type, Priority, Deadline, Cost, Comment, MAX
+    Title, Duration, Start, End, Work, Predecessors, Successors, Resources, Type, Priority, Deadline, Cost, Comment, MAX
   }
 
   /**************************************** constructor ******************************************/
   public Task()
   {
     // initialise
-    m_duration = new TimeSpan( "1d" );
+    m_duration = TimeSpan.of( 1.0, TimeSpan.Unit.DAYS );
     m_type = TaskType.ASAP_FIXED_DURATION;
     m_priority = 100;
     m_indent = 0;
     m_summaryStart = 0;
     m_summaryEnd = -1;
+    m_version = VersionStamp.next();
+  }
+
+  /**************************************** constructor ******************************************/
+  public Task( Task task )
+  {
+    // construct copy, field values are immutable so are shared
+    m_title = task.m_title;
+    m_duration = task.m_duration;
+    m_start = task.m_start;
+    m_end = task.m_end;
+    m_work = task.m_work;
+    m_predecessors = task.m_predecessors;
+    m_resources = task.m_resources;
+    m_type = task.m_type;
+    m_priority = task.m_priority;
+    m_deadline = task.m_deadline;
+    m_cost = task.m_cost;
+    m_comment = task.m_comment;
+    m_estimate = task.m_estimate;
+    m_indent = task.m_indent;
+    m_summaryStart = task.m_summaryStart;
+    m_summaryEnd = task.m_summaryEnd;
+    m_version = task.m_version;
   }
 
   /***************************************** toString ********************************************/
@@ -102,6 +128,8 @@ public class Task
         return m_priority;
       case Resources:
         return m_resources;
+      case Successors:
+        return null; // held by Tasks successor index
       case Start:
         return m_start;
       case Title:
@@ -124,6 +152,16 @@ public class Task
 
   /****************************************** setValue *******************************************/
   public String setValue( int field, Object newValue, boolean commit )
+  {
+    // set/check field value and return null if successful/possible, new version stamp if committed
+    String error = set( field, newValue, commit );
+    if ( commit && error == null )
+      m_version = VersionStamp.next();
+    return error;
+  }
+
+  /********************************************* set *********************************************/
+  private String set( int field, Object newValue, boolean commit )
   {
     // set/check field value and return null if successful/possible
     switch ( FIELD.values()[field] )
@@ -242,6 +280,9 @@ public class Task
         }
         return "Not Task-Resources: " + Utils.objectsString( newValue );
 
+      case Successors:
+        return "Successors are set by predecessors of other tasks";
+
       case Cost:
 
       case Work:
@@ -251,10 +292,100 @@ public class Task
     }
   }
 
+  /***************************************** getEstimate *****************************************/
+  public DurationEstimate getEstimate()
+  {
+    // return three-point duration estimate, or null if duration is certain
+    return m_estimate;
+  }
+
+  /***************************************** setEstimate *****************************************/
+  public void setEstimate( DurationEstimate estimate )
+  {
+    m_estimate = estimate;
+  }
+
+  /****************************************** getIndent ******************************************/
+  public int getIndent()
+  {
+    return m_indent;
+  }
+
+  /****************************************** setIndent ******************************************/
+  public String setIndent( int indent )
+  {
+    // set indent level, summary ranges need updating afterwards
+    if ( indent < 0 || indent > 99 )
+      return "Indent not between 0 and 99";
+    m_indent = indent;
+    m_version = VersionStamp.next();
+    return null;
+  }
+
+  /****************************************** isSummary ******************************************/
+  public boolean isSummary()
+  {
+    // task is a summary if following tasks are indented under it
+    return m_summaryEnd >= 0;
+  }
+
+  /*************************************** getSummaryStart ***************************************/
+  public int getSummaryStart()
+  {
+    // return index of this task's summary, zero if not under any summary
+    return m_summaryStart;
+  }
+
+  /**************************************** getSummaryEnd ****************************************/
+  public int getSummaryEnd()
+  {
+    // return index of last task under this summary, or -1 if not a summary
+    return m_summaryEnd;
+  }
+
+  /*************************************** setSummaryRange ***************************************/
+  void setSummaryRange( int summaryStart, int summaryEnd )
+  {
+    // a task becoming or ceasing to be a summary changes whether it is scheduled, and drops any rolled up work
+    if ( ( summaryEnd >= 0 ) != isSummary() )
+    {
+      if ( isSummary() )
+      {
+        m_work = null;
+        m_cost = null;
+      }
+      m_version = VersionStamp.next();
+    }
+    m_summaryStart = summaryStart;
+    m_summaryEnd = summaryEnd;
+  }
+
+  /****************************************** setRollup ******************************************/
+  boolean setRollup( DateTime start, DateTime end, TimeSpan work, Double cost )
+  {
+    // set summary values rolled up from sub-tasks, returning true if any changed
+    if ( Objects.equals( start, m_start ) && Objects.equals( end, m_end ) && Objects.equals( work, m_work )
+        && Objects.equals( cost, m_cost ) )
+      return false;
+    m_start = start;
+    m_end = end;
+    m_work = work;
+    m_cost = cost;
+    m_version = VersionStamp.next();
+    return true;
+  }
+
   /*************************************** getPredecessors ***************************************/
   public Predecessors getPredecessors()
   {
     return m_predecessors;
   }
 
+  /***************************************** getVersion ******************************************/
+  public long getVersion()
+  {
+    // return version stamp, changes on every committed edit
+    return m_version;
+  }
+
 }
@@ -0,0 +1,165 @@
+/**************************************************************************
+ *  Copyright (C) 2026 by Richard Crook                                   *
+ *  https://github.com/dazzle50/JPlannerFX                                *
+ *                                                                        *
+ *  This program is free software: you can redistribute it and/or modify  *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  This program is distributed in the hope that it will be useful,       *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with this program.  If not, see http://www.gnu.org/licenses/    *
+ **************************************************************************/
+
+package rjc.jplanner.plan.tasks;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.TreeMap;
+
+import rjc.table.data.types.DateTime;
+
+/*************************************************************************************************/
+/************* Tasks ordered by deadline slack and by total float for at-risk queries ************/
+/*************************************************************************************************/
+
+class TaskDeadlines
+{
+  private IdentityHashMap<Task, Key> m_slacks;  // recorded deadline slack of each task with deadline & end
+  private IdentityHashMap<Task, Key> m_floats;  // recorded total float of each scheduled task
+  private TreeMap<Key, Task>         m_bySlack; // tasks by deadline less end, most at risk first
+  private TreeMap<Key, Task>         m_byFloat; // tasks by total float, least first
+  private long                       m_serial;  // increasing tie-breaker so equal values have distinct keys
+
+  /********************************************* Key *********************************************/
+  private record Key( long value, long serial ) implements Comparable<Key>
+  {
+    @Override
+    public int compareTo( Key other )
+    {
+      // order by value, then by when recorded
+      int compare = Long.compare( value, other.value );
+      return compare != 0 ? compare : Long.compare( serial, other.serial );
+    }
+  }
+
+  /**************************************** constructor ******************************************/
+  public TaskDeadlines()
+  {
+    // construct empty index
+    m_slacks = new IdentityHashMap<>();
+    m_floats = new IdentityHashMap<>();
+    m_bySlack = new TreeMap<>();
+    m_byFloat = new TreeMap<>();
+  }
+
+  /******************************************* refresh *******************************************/
+  public void refresh( Task task )
+  {
+    // re-record deadline less end if changed, O(log tasks), tasks no longer scheduled lose their float
+    if ( task.isBlank() || task.isSummary() )
+      record( m_floats, m_byFloat, task, null );
+
+    var deadline = task.isBlank() ? null : (DateTime) task.getValue( Task.FIELD.Deadline.ordinal() );
+    var end = (DateTime) task.getValue( Task.FIELD.End.ordinal() );
+    Long slack = deadline == null || end == null ? null : deadline.toMilliseconds() - end.toMilliseconds();
+    record( m_slacks, m_bySlack, task, slack );
+  }
+
+  /****************************************** setFloat *******************************************/
+  public void setFloat( Task task, long totalFloat )
+  {
+    // re-record total float of scheduled task, O(log tasks)
+    record( m_floats, m_byFloat, task, totalFloat );
+  }
+
+  /***************************************** clearFloats *****************************************/
+  public void clearFloats()
+  {
+    // forget all total floats, before recording those of a complete schedule
+    m_floats.clear();
+    m_byFloat.clear();
+  }
+
+  /******************************************* remove ********************************************/
+  public void remove( Task task )
+  {
+    // forget task, O(log tasks)
+    record( m_slacks, m_bySlack, task, null );
+    record( m_floats, m_byFloat, task, null );
+  }
+
+  /******************************************** clear ********************************************/
+  public void clear()
+  {
+    // forget all tasks
+    m_slacks.clear();
+    m_bySlack.clear();
+    clearFloats();
+  }
+
+  /***************************************** mostAtRisk ******************************************/
+  public List<Task> mostAtRisk( int count )
+  {
+    // return up to count tasks with least deadline slack, O(log tasks + count)
+    if ( count < 0 )
+      throw new IllegalArgumentException( "Count must not be negative (" + count + ")" );
+    var tasks = new ArrayList<Task>( Math.min( count, m_bySlack.size() ) );
+    for ( var task : m_bySlack.values() )
+    {
+      if ( tasks.size() >= count )
+        break;
+      tasks.add( task );
+    }
+    return tasks;
+  }
+
+  /****************************************** breaches *******************************************/
+  public List<Task> breaches()
+  {
+    // return tasks ending after their deadline, most late first, O(log tasks + breaches)
+    return below( m_bySlack );
+  }
+
+  /**************************************** negativeFloat ****************************************/
+  public List<Task> negativeFloat()
+  {
+    // return scheduled tasks with negative total float, least first, O(log tasks + found)
+    return below( m_byFloat );
+  }
+
+  /******************************************** below ********************************************/
+  private static List<Task> below( TreeMap<Key, Task> ordered )
+  {
+    // return tasks with negative value in order
+    return new ArrayList<>( ordered.headMap( new Key( 0L, Long.MIN_VALUE ) ).values() );
+  }
+
+  /******************************************* record ********************************************/
+  private void record( IdentityHashMap<Task, Key> recorded, TreeMap<Key, Task> ordered, Task task, Long value )
+  {
+    // replace recorded value of task, or forget task if value is null
+    var key = recorded.get( task );
+    if ( key != null && value != null && key.value() == value )
+      return;
+
+    if ( key != null )
+    {
+      ordered.remove( key );
+      recorded.remove( task );
+    }
+    if ( value != null )
+    {
+      key = new Key( value, m_serial++ );
+      recorded.put( task, key );
+      ordered.put( key, task );
+    }
+  }
+
+}
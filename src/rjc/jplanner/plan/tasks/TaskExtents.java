@@ -0,0 +1,132 @@
+/**************************************************************************
+ *  Copyright (C) 2026 by Richard Crook                                   *
+ *  https://github.com/dazzle50/JPlannerFX                                *
+ *                                                                        *
+ *  This program is free software: you can redistribute it and/or modify  *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  This program is distributed in the hope that it will be useful,       *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with this program.  If not, see http://www.gnu.org/licenses/    *
+ **************************************************************************/
+
+package rjc.jplanner.plan.tasks;
+
+import java.util.IdentityHashMap;
+import java.util.TreeMap;
+
+import rjc.table.data.types.DateTime;
+
+/*************************************************************************************************/
+/************** Maintained earliest start & latest end over all non-blank plan tasks *************/
+/*************************************************************************************************/
+
+class TaskExtents
+{
+  private IdentityHashMap<Task, DateTime[]> m_recorded; // start & end last recorded for each task
+  private TreeMap<DateTime, Integer>        m_starts;   // count of tasks at each recorded start
+  private TreeMap<DateTime, Integer>        m_ends;     // count of tasks at each recorded end
+  private DateTime                          m_earliest; // earliest recorded start, or null if none
+  private DateTime                          m_latest;   // latest recorded end, or null if none
+
+  /**************************************** constructor ******************************************/
+  public TaskExtents()
+  {
+    // construct empty extents
+    m_recorded = new IdentityHashMap<>();
+    m_starts = new TreeMap<>();
+    m_ends = new TreeMap<>();
+  }
+
+  /******************************************* refresh *******************************************/
+  public void refresh( Task task )
+  {
+    // re-record task start & end if changed, blank tasks are not recorded, O(log tasks)
+    var start = task.isBlank() ? null : (DateTime) task.getValue( Task.FIELD.Start.ordinal() );
+    var end = task.isBlank() ? null : (DateTime) task.getValue( Task.FIELD.End.ordinal() );
+    var recorded = m_recorded.get( task );
+    if ( recorded != null && recorded[0] == start && recorded[1] == end )
+      return;
+
+    if ( recorded != null )
+    {
+      decrement( m_starts, recorded[0] );
+      decrement( m_ends, recorded[1] );
+    }
+    if ( start == null && end == null )
+      m_recorded.remove( task );
+    else
+    {
+      m_recorded.put( task, new DateTime[] { start, end } );
+      increment( m_starts, start );
+      increment( m_ends, end );
+    }
+    extents();
+  }
+
+  /******************************************* remove ********************************************/
+  public void remove( Task task )
+  {
+    // forget task start & end, O(log tasks)
+    var recorded = m_recorded.remove( task );
+    if ( recorded == null )
+      return;
+
+    decrement( m_starts, recorded[0] );
+    decrement( m_ends, recorded[1] );
+    extents();
+  }
+
+  /******************************************** clear ********************************************/
+  public void clear()
+  {
+    // forget all tasks
+    m_recorded.clear();
+    m_starts.clear();
+    m_ends.clear();
+    extents();
+  }
+
+  /************************************** getEarliestStart ***************************************/
+  public DateTime getEarliestStart()
+  {
+    return m_earliest;
+  }
+
+  /**************************************** getLatestEnd *****************************************/
+  public DateTime getLatestEnd()
+  {
+    return m_latest;
+  }
+
+  /******************************************* extents *******************************************/
+  private void extents()
+  {
+    // cache extremes so reading them is O(1)
+    m_earliest = m_starts.isEmpty() ? null : m_starts.firstKey();
+    m_latest = m_ends.isEmpty() ? null : m_ends.lastKey();
+  }
+
+  /****************************************** increment ******************************************/
+  private static void increment( TreeMap<DateTime, Integer> counts, DateTime dt )
+  {
+    // count one more task at date-time
+    if ( dt != null )
+      counts.merge( dt, 1, Integer::sum );
+  }
+
+  /****************************************** decrement ******************************************/
+  private static void decrement( TreeMap<DateTime, Integer> counts, DateTime dt )
+  {
+    // count one less task at date-time, removing it when none left
+    if ( dt != null )
+      counts.computeIfPresent( dt, ( key, count ) -> count > 1 ? count - 1 : null );
+  }
+
+}
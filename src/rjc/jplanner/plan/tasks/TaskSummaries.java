@@ -0,0 +1,232 @@
+/**************************************************************************
+ *  Copyright (C) 2026 by Richard Crook                                   *
+ *  https://github.com/dazzle50/JPlannerFX                                *
+ *                                                                        *
+ *  This program is free software: you can redistribute it and/or modify  *
+ *  it under the terms of the GNU General Public License as published by  *
+ *  the Free Software Foundation, either version 3 of the License, or     *
+ *  (at your option) any later version.                                   *
+ *                                                                        *
+ *  This program is distributed in the hope that it will be useful,       *
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *  GNU General Public License for more details.                          *
+ *                                                                        *
+ *  You should have received a copy of the GNU General Public License     *
+ *  along with this program.  If not, see http://www.gnu.org/licenses/    *
+ **************************************************************************/
+
+package rjc.jplanner.plan.tasks;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.TreeMap;
+
+import rjc.jplanner.plan.Plan;
+import rjc.jplanner.plan.TimeSpan;
+import rjc.table.data.types.DateTime;
+
+/*************************************************************************************************/
+/********* Summary hierarchy from task indents, with start, end, work & cost rolled up ***********/
+/*************************************************************************************************/
+
+class TaskSummaries
+{
+  private static final Share            NONE = new Share( null, null, 0L, 0L, false ); // share of blank task
+
+  private Tasks                         m_tasks;  // tasks whose indents give the hierarchy
+  private IdentityHashMap<Task, Share>  m_shares; // share each task last gave to its summary
+  private IdentityHashMap<Task, Totals> m_totals; // maintained totals of each summary's direct children
+
+  // start, end, working milliseconds & cost in hundredths a task gives to its summary
+  private record Share( DateTime start, DateTime end, long work, long cost, boolean hasWork )
+  {
+  }
+
+  /**************************************** constructor ******************************************/
+  public TaskSummaries( Tasks tasks )
+  {
+    m_tasks = tasks;
+    m_shares = new IdentityHashMap<>();
+    m_totals = new IdentityHashMap<>();
+  }
+
+  /******************************************* update ********************************************/
+  public void update( Plan plan, BitSet rolled )
+  {
+    // derive summary ranges in one stack-based pass, then roll up all summaries recording each changed
+    int count = m_tasks.size();
+    var open = new ArrayDeque<Integer>();
+    for ( int index = 1; index < count; index++ )
+    {
+      // a task closes any open summaries not indented less than it
+      int indent = m_tasks.get( index ).getIndent();
+      while ( !open.isEmpty() && m_tasks.get( open.peek() ).getIndent() >= indent )
+        close( open.pop(), index - 1 );
+
+      m_tasks.get( index ).setSummaryRange( open.isEmpty() ? 0 : open.peek(), -1 );
+      open.push( index );
+    }
+    while ( !open.isEmpty() )
+      close( open.pop(), count - 1 );
+
+    // children come after their summary, so totalling in reverse completes each summary before it is shared
+    m_shares = new IdentityHashMap<>( count * 2 );
+    m_totals = new IdentityHashMap<>();
+    for ( int index = count - 1; index > 0; index-- )
+    {
+      var task = m_tasks.get( index );
+      if ( task.isSummary() && rollup( task, plan ) )
+        rolled.set( index );
+      if ( task.getSummaryStart() > 0 )
+        share( task, m_tasks.get( task.getSummaryStart() ), plan );
+    }
+  }
+
+  /******************************************** close ********************************************/
+  private void close( int summary, int last )
+  {
+    // task is a summary if any tasks were indented under it
+    var task = m_tasks.get( summary );
+    task.setSummaryRange( task.getSummaryStart(), last > summary ? last : -1 );
+  }
+
+  /******************************************* changed *******************************************/
+  public void changed( int index, Plan plan, BitSet rolled )
+  {
+    // update totals of each ancestor of changed task in turn, stopping when a share or summary is unchanged
+    var task = m_tasks.get( index );
+    for ( int summary = task.getSummaryStart(); summary > 0; summary = task.getSummaryStart() )
+    {
+      var parent = m_tasks.get( summary );
+      if ( !share( task, parent, plan ) || !rollup( parent, plan ) )
+        return;
+      rolled.set( summary );
+      task = parent;
+    }
+  }
+
+  /******************************************** share ********************************************/
+  private boolean share( Task task, Task summary, Plan plan )
+  {
+    // replace task's share in its summary's totals, returning true if it changed
+    var share = share( task, plan );
+    var old = m_shares.put( task, share );
+    if ( share.equals( old ) )
+      return false;
+
+    var totals = m_totals.computeIfAbsent( summary, key -> new Totals() );
+    if ( old != null )
+      totals.remove( old );
+    totals.add( share );
+    return true;
+  }
+
+  private Share share( Task task, Plan plan )
+  {
+    // share of task in its summary, sub-summaries give their own totals
+    if ( task.isBlank() )
+      return NONE;
+    var start = task.getValue( Task.FIELD.Start.ordinal() ) instanceof DateTime dt ? dt : null;
+    var end = task.getValue( Task.FIELD.End.ordinal() ) instanceof DateTime dt ? dt : null;
+    if ( task.isSummary() )
+    {
+      var totals = m_totals.get( task );
+      return totals == null ? new Share( start, end, 0L, 0L, false )
+          : new Share( start, end, totals.m_work, totals.m_cost, totals.m_working > 0 );
+    }
+
+    // other tasks work each assigned resource throughout their duration, tag quantities shared by availability
+    if ( !( task.getValue( Task.FIELD.Resources.ordinal() ) instanceof TaskResources resources ) )
+      return new Share( start, end, 0L, 0L, false );
+    var calendar = plan.getDefaultCalendar();
+    double dayMS = calendar.toWorkMS( 100L, TimeSpan.Unit.DAYS );
+    long duration = Math.max( calendar.toWorkMS( (TimeSpan) task.getValue( Task.FIELD.Duration.ordinal() ) ), 0L );
+    long work = 0L;
+    double cost = 0.0;
+    boolean hasWork = false;
+    for ( var assignment : resources.assignments() )
+    {
+      var matched = plan.getResources().findByTag( assignment.tag() );
+      double total = 0.0;
+      for ( var resource : matched )
+        total += resource.getAvailable();
+      for ( var resource : matched )
+        if ( resource.getAvailable() > 0.0 )
+        {
+          double quantity = assignment.allAvailable() ? resource.getAvailable()
+              : assignment.quantity() * resource.getAvailable() / total;
+          long resourceWork = Math.round( duration * quantity );
+          work += resourceWork;
+          cost += resourceWork / dayMS * resource.getCost();
+          hasWork = true;
+        }
+    }
+
+    // each task's cost is kept to whole hundredths, so totals add up exactly
+    return new Share( start, end, work, Math.round( cost * 100.0 ), hasWork );
+  }
+
+  /******************************************* rollup ********************************************/
+  private boolean rollup( Task summary, Plan plan )
+  {
+    // set summary start, end, work & cost from totals of its direct children, returning true if any changed
+    var totals = m_totals.get( summary );
+    if ( totals == null )
+      return summary.setRollup( null, null, null, null );
+
+    var calendar = plan.getDefaultCalendar();
+    boolean hasWork = totals.m_working > 0;
+    return summary.setRollup( totals.m_starts.isEmpty() ? null : totals.m_starts.firstKey(),
+        totals.m_ends.isEmpty() ? null : totals.m_ends.lastKey(),
+        hasWork ? calendar.toTimeSpan( totals.m_work, TimeSpan.Unit.DAYS ) : null,
+        hasWork ? totals.m_cost / 100.0 : null );
+  }
+
+  /******************************************* Totals ********************************************/
+  private static class Totals
+  {
+    private TreeMap<DateTime, Integer> m_starts;  // count of children at each start
+    private TreeMap<DateTime, Integer> m_ends;    // count of children at each end
+    private long                       m_work;    // working milliseconds of children
+    private long                       m_cost;    // cost of children in hundredths
+    private int                        m_working; // number of children with work
+
+    /*************************************** constructor *****************************************/
+    private Totals()
+    {
+      m_starts = new TreeMap<>();
+      m_ends = new TreeMap<>();
+    }
+
+    /******************************************* add *********************************************/
+    private void add( Share share )
+    {
+      // count child's share, O(log children)
+      if ( share.start() != null )
+        m_starts.merge( share.start(), 1, Integer::sum );
+      if ( share.end() != null )
+        m_ends.merge( share.end(), 1, Integer::sum );
+      m_work += share.work();
+      m_cost += share.cost();
+      if ( share.hasWork() )
+        m_working++;
+    }
+
+    /****************************************** remove *******************************************/
+    private void remove( Share share )
+    {
+      // uncount child's share, O(log children)
+      if ( share.start() != null )
+        m_starts.computeIfPresent( share.start(), ( key, count ) -> count > 1 ? count - 1 : null );
+      if ( share.end() != null )
+        m_ends.computeIfPresent( share.end(), ( key, count ) -> count > 1 ? count - 1 : null );
+      m_work -= share.work();
+      m_cost -= share.cost();
+      if ( share.hasWork() )
+        m_working--;
+    }
+  }
+
+}
@@ -20,9 +20,16 @@ package rjc.jplanner.plan.tasks;
 
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.StringJoiner;
 
 import rjc.jplanner.Main;
 import rjc.jplanner.plan.Plan;
+import rjc.jplanner.plan.calenders.Calendar;
+import rjc.jplanner.plan.calenders.CompiledCalendar;
+import rjc.table.data.types.DateTime;
 
 /*************************************************************************************************/
 /**************************** Holds the complete list of plan tasks ******************************/
@@ -30,15 +37,29 @@ import rjc.jplanner.plan.Plan;
 
 public class Tasks extends ArrayList<Task>
 {
-  private static final long   serialVersionUID = Main.VERSION.hashCode();
+  private static final long                serialVersionUID = Main.VERSION.hashCode();
+
+  // edits that can change the dependency network, and edits that only change the task's own schedule
+  private static final EnumSet<Task.FIELD> NETWORK_FIELDS   = EnumSet.of( Task.FIELD.Title, Task.FIELD.Predecessors );
+  private static final EnumSet<Task.FIELD> TASK_FIELDS      = EnumSet.of( Task.FIELD.Duration, Task.FIELD.Start,
+      Task.FIELD.End, Task.FIELD.Work, Task.FIELD.Resources, Task.FIELD.Type );
 
   private WeakReference<Plan> m_weakPlan;
+  private TaskSummaries       m_summaries;   // summary hierarchy & rollups from task indents
+  private TaskExtents         m_extents;     // maintained earliest start & latest end of tasks
+  private TaskDeadlines       m_deadlines;   // maintained ordering by deadline slack & by total float
+  private CompiledNetwork     m_network;     // primitive snapshot of tasks & their dependencies, relinked on edit
+  private int[]               m_rescheduled; // tasks moved by latest committed edit, by rescheduling or rollup
+  private boolean             m_outdated;    // true if latest edit could not be rescheduled incrementally
 
   /**************************************** constructor ******************************************/
   public Tasks( Plan plan )
   {
     // hold plan weakly so does not prevent garbage collection of plan
     m_weakPlan = new WeakReference<>( plan );
+    m_summaries = new TaskSummaries( this );
+    m_extents = new TaskExtents();
+    m_deadlines = new TaskDeadlines();
   }
 
   /****************************************** initialise *****************************************/
@@ -53,6 +74,26 @@ public class Tasks extends ArrayList<Task>
     get( 0 ).setValue( Task.FIELD.Title.ordinal(), "[OVERALL_PROJECT]", true );
   }
 
+  /******************************************** clear ********************************************/
+  @Override
+  public void clear()
+  {
+    // remove all tasks and their compiled network
+    super.clear();
+    m_network = null;
+    m_extents.clear();
+    m_deadlines.clear();
+  }
+
+  /********************************************* add *********************************************/
+  @Override
+  public boolean add( Task task )
+  {
+    // append task, network is recompiled when next needed as rows have changed
+    m_network = null;
+    return super.add( task );
+  }
+
   /*************************************** getNotNullCount ***************************************/
   public int getNotNullCount()
   {
@@ -85,8 +126,298 @@ public class Tasks extends ArrayList<Task>
       }
     }
 
-    // delegate to task to set value, and return any error message
-    return get( taskIndex ).setValue( field, newValue, commit );
+    // summary dates & work are rolled up from sub-tasks so cannot be set directly
+    var task = get( taskIndex );
+    if ( task.isSummary() && ( field == Task.FIELD.Duration.ordinal() || field == Task.FIELD.Start.ordinal()
+        || field == Task.FIELD.End.ordinal() || field == Task.FIELD.Work.ordinal() ) )
+      return "Summary " + Task.FIELD.values()[field] + " is rolled up from sub-tasks";
+
+    // delegate to task to set value, keeping network edges in step with committed predecessors
+    String error = task.setValue( field, newValue, commit );
+    if ( commit && error == null )
+    {
+      if ( field == Task.FIELD.Predecessors.ordinal() )
+        link( task );
+      m_rescheduled = rollup( taskIndex, field, reschedule( taskIndex, field ) );
+      record( taskIndex, m_rescheduled );
+    }
+    return error;
+  }
+
+  /******************************************* rollup ********************************************/
+  private int[] rollup( int taskIndex, int field, int[] rescheduled )
+  {
+    // roll up ancestors of edited task and of tasks moved by rescheduling it, returning all moved tasks
+    var plan = m_weakPlan.get();
+    if ( plan == null )
+      return rescheduled;
+
+    var rows = new BitSet( size() );
+    if ( rescheduled != null )
+      for ( int row : rescheduled )
+        rows.set( row );
+    if ( field == Task.FIELD.Start.ordinal() || field == Task.FIELD.End.ordinal()
+        || field == Task.FIELD.Duration.ordinal() || field == Task.FIELD.Work.ordinal()
+        || field == Task.FIELD.Resources.ordinal() )
+      rows.set( taskIndex );
+    if ( rows.isEmpty() )
+      return rescheduled;
+
+    var changed = (BitSet) rows.clone();
+    rows.stream().forEach( row -> m_summaries.changed( row, plan, changed ) );
+    return changed.stream().toArray();
+  }
+
+  /******************************************* record ********************************************/
+  private void record( int taskIndex, int[] moved )
+  {
+    // re-record dates & deadline slack of edited task and of tasks moved by rescheduling or rollup
+    if ( taskIndex > 0 )
+      refresh( get( taskIndex ) );
+    if ( moved != null )
+      for ( int row : moved )
+        if ( row > 0 )
+          refresh( get( row ) );
+  }
+
+  /******************************************* refresh *******************************************/
+  private void refresh( Task task )
+  {
+    // re-record task dates for plan extents and deadline slack
+    m_extents.refresh( task );
+    m_deadlines.refresh( task );
+  }
+
+  /************************************** getEarliestStart ***************************************/
+  public DateTime getEarliestStart()
+  {
+    // return earliest start of any task in O(1), or null if no task has a start
+    return m_extents.getEarliestStart();
+  }
+
+  /**************************************** getLatestEnd *****************************************/
+  public DateTime getLatestEnd()
+  {
+    // return latest end of any task in O(1), or null if no task has an end
+    return m_extents.getLatestEnd();
+  }
+
+  /***************************************** datesChanged ****************************************/
+  public void datesChanged( int[] taskIndexes )
+  {
+    // re-record dates of tasks changed outside of setValue (e.g. by scheduling) then roll up summaries
+    for ( int taskIndex : taskIndexes )
+      if ( taskIndex > 0 )
+        refresh( get( taskIndex ) );
+    updateSummaries();
+  }
+
+  /**************************************** floatsChanged ****************************************/
+  public void floatsChanged( int[] taskIndexes, long[] totalFloat, boolean complete )
+  {
+    // re-record total float (indexed by task) of tasks changed by scheduling, complete if all scheduled tasks
+    if ( complete )
+      m_deadlines.clearFloats();
+    for ( int taskIndex : taskIndexes )
+      m_deadlines.setFloat( get( taskIndex ), totalFloat[taskIndex] );
+  }
+
+  /*************************************** getMostAtRisk *****************************************/
+  public List<Task> getMostAtRisk( int count )
+  {
+    // return up to count tasks with least time between end and deadline, in O(log tasks + count)
+    return m_deadlines.mostAtRisk( count );
+  }
+
+  /************************************* getDeadlineBreaches *************************************/
+  public List<Task> getDeadlineBreaches()
+  {
+    // return tasks ending after their deadline, most late first, in O(log tasks + breaches)
+    return m_deadlines.breaches();
+  }
+
+  /************************************** getNegativeFloat ***************************************/
+  public List<Task> getNegativeFloat()
+  {
+    // return scheduled tasks with negative total float, least first, in O(log tasks + found)
+    return m_deadlines.negativeFloat();
+  }
+
+  /****************************************** calendar *******************************************/
+  private Calendar calendar()
+  {
+    // return plan default calendar used to compile network, or null if plan has gone
+    var plan = m_weakPlan.get();
+    return plan == null ? null : plan.getDefaultCalendar();
+  }
+
+  /*************************************** updateSummaries ***************************************/
+  public void updateSummaries()
+  {
+    // re-derive summary ranges from task indents and roll up every summary
+    var plan = m_weakPlan.get();
+    if ( plan == null )
+      return;
+
+    var rolled = new BitSet( size() );
+    m_summaries.update( plan, rolled );
+    rolled.stream().forEach( row -> refresh( get( row ) ) );
+  }
+
+  /****************************************** setIndent ******************************************/
+  public String setIndent( int taskIndex, int indent )
+  {
+    // set task indent, which can change which tasks are summaries and so the schedulable network
+    if ( taskIndex < 1 )
+      return "Cannot indent overall project summary";
+    String error = get( taskIndex ).setIndent( indent );
+    if ( error != null )
+      return error;
+
+    updateSummaries();
+    var plan = m_weakPlan.get();
+    if ( plan != null )
+      plan.setScheduler( null );
+    return null;
+  }
+
+  /*************************************** setPredecessors ***************************************/
+  public void setPredecessors( Task task, Predecessors predecessors )
+  {
+    // set task predecessors without validation (e.g. undo data) keeping network edges in step
+    task.setValue( Task.FIELD.Predecessors.ordinal(), predecessors, true );
+    link( task );
+  }
+
+  /******************************************** link *********************************************/
+  private void link( Task task )
+  {
+    // replace network edges of task with its committed predecessors, keeping topological order
+    if ( m_network != null )
+      m_network.relink( task );
+  }
+
+  /****************************************** structure ******************************************/
+  private CompiledNetwork structure()
+  {
+    // return network for its edges & order whatever calendar it was compiled with, or null if plan has gone
+    if ( m_network == null )
+    {
+      var calendar = calendar();
+      if ( calendar == null )
+        return null;
+      m_network = new CompiledNetwork( this, this::get, calendar.getCompiled() );
+    }
+    return m_network;
+  }
+
+  /***************************************** getNetwork ******************************************/
+  public CompiledNetwork getNetwork( CompiledCalendar calendar )
+  {
+    // return compiled network of tasks, only recompiling rows edited since last returned
+    if ( m_network == null )
+      m_network = new CompiledNetwork( this, this::get, calendar );
+    else
+      m_network.update( this, this::get, calendar );
+    return m_network;
+  }
+
+  /***************************************** isCircular ******************************************/
+  boolean isCircular( Task task, Predecessors predecessors )
+  {
+    // return true if listed task already leads to any of predecessors, searching network successor edges
+    var network = structure();
+    int row = network == null ? -1 : network.getRow( task );
+    return row >= 0 && network.isCircular( row, predecessors );
+  }
+
+  /**************************************** getSuccessors ****************************************/
+  public List<Dependency> getSuccessors( Task task )
+  {
+    // return dependencies on task, each referencing the dependent task
+    var network = structure();
+    return network == null ? List.of() : network.getSuccessors( task );
+  }
+
+  /************************************** getSuccessorsText **************************************/
+  public String getSuccessorsText( int taskIndex )
+  {
+    // successors string is comma-separated list in same format as predecessors
+    var sj = new StringJoiner( ", " );
+    for ( var dep : getSuccessors( get( taskIndex ) ) )
+      sj.add( dep.toString( this ) );
+    return sj.length() == 0 ? null : sj.toString();
+  }
+
+  /***************************************** insertTasks *****************************************/
+  public void insertTasks( int index, List<Task> tasks )
+  {
+    // insert tasks, network is recompiled with their predecessors when next needed
+    addAll( index, tasks );
+    m_network = null;
+    for ( var task : tasks )
+      refresh( task );
+    updateSummaries();
+  }
+
+  /***************************************** removeTasks *****************************************/
+  public ArrayList<Task> removeTasks( int index, int count )
+  {
+    // remove and return tasks, network is recompiled without them when next needed
+    var removed = new ArrayList<Task>( subList( index, index + count ) );
+    subList( index, index + count ).clear();
+    m_network = null;
+    for ( var task : removed )
+    {
+      m_extents.remove( task );
+      m_deadlines.remove( task );
+    }
+    updateSummaries();
+    return removed;
+  }
+
+  /***************************************** reschedule ******************************************/
+  private int[] reschedule( int taskIndex, int field )
+  {
+    // if plan has been scheduled, reschedule just the tasks affected by committed edit, returning those moved
+    var plan = m_weakPlan.get();
+    var scheduler = plan == null ? null : plan.getScheduler();
+    if ( scheduler == null )
+      return null;
+
+    var edited = Task.FIELD.values()[field];
+    try
+    {
+      if ( NETWORK_FIELDS.contains( edited ) )
+        return scheduler.reschedule( taskIndex, true );
+      if ( TASK_FIELDS.contains( edited ) )
+        return scheduler.reschedule( taskIndex, false );
+    }
+    catch ( IllegalStateException exception )
+    {
+      // plan changed since scheduled (a CancellationException) or is now circular, so needs a full schedule
+      plan.setScheduler( null );
+      m_outdated = true;
+    }
+    return null;
+  }
+
+  /***************************************** takeOutdated ****************************************/
+  public boolean takeOutdated()
+  {
+    // return and forget whether latest edit needs a full schedule as it could not be rescheduled
+    boolean outdated = m_outdated;
+    m_outdated = false;
+    return outdated;
+  }
+
+  /*************************************** takeRescheduled ***************************************/
+  public int[] takeRescheduled()
+  {
+    // return and forget indexes of tasks moved by latest committed edit
+    int[] rescheduled = m_rescheduled == null ? new int[0] : m_rescheduled;
+    m_rescheduled = null;
+    return rescheduled;
   }
 
 }
@@ -30,6 +30,7 @@ import rjc.jplanner.plan.calenders.Calendar;
 import rjc.jplanner.plan.days.Day;
 import rjc.jplanner.plan.days.DayWorkPeriod;
 import rjc.jplanner.plan.resources.Resource;
+import rjc.jplanner.plan.tasks.DurationEstimate;
 import rjc.jplanner.plan.tasks.Task;
 import rjc.table.Utils;
 import rjc.table.data.types.Date;
@@ -386,7 +387,7 @@ public final class XmlPlanReader
       throw new IOException( "Calendar requires at least one normal day" );
 
     var calendar = new Calendar( name, anchor, normals.toArray( new Day[0] ) );
-    calendar.getExceptions().putAll( exceptions );
+    calendar.addExceptions( exceptions );
     m_plan.getCalendars().add( calendar );
   }
 
@@ -497,7 +498,8 @@ public final class XmlPlanReader
           case XmlLabels.XML_CALENDAR -> resource.setValue( Resource.FIELD.Calendar.ordinal(),
               m_plan.getCalendar( Integer.parseInt( value ) ), true );
           case XmlLabels.XML_COMMENT -> resource.setValue( Resource.FIELD.Comment.ordinal(), value, true );
-          case XmlLabels.XML_COST -> "TODO loading resource attribute '" + attrib + "'";
+          case XmlLabels.XML_COST -> resource.setValue( Resource.FIELD.Cost.ordinal(), Double.parseDouble( value ),
+              true );
           default -> "Unhandled attribute '" + attrib + "' = '" + value + "'";
         };
         if ( problem != null )
@@ -532,12 +534,15 @@ public final class XmlPlanReader
       m_xml.next();
       if ( m_xml.isEndElement() && m_xml.getLocalName().equals( XmlLabels.XML_TASK_DATA ) )
       {
-        // now that every task slot is populated, cross-references can finally be resolved
+        // now that every task slot is populated, cross-references can finally be resolved, after
+        // summaries are known as they cannot be predecessors
+        tasks.updateSummaries();
         for ( int id = 0; id < count; id++ )
         {
           applyTaskReference( id, Task.FIELD.Predecessors, predecessors[id] );
           applyTaskReference( id, Task.FIELD.Resources, resources[id] );
         }
+        tasks.updateSummaries();
         return;
       }
       if ( !m_xml.isStartElement() )
@@ -593,7 +598,7 @@ public final class XmlPlanReader
           case XmlLabels.XML_ID -> null;
           case XmlLabels.XML_TITLE -> m_plan.getTasks().setValue( id, Task.FIELD.Title.ordinal(), value, true );
           case XmlLabels.XML_DURATION -> m_plan.getTasks().setValue( id, Task.FIELD.Duration.ordinal(),
-              new TimeSpan( value ), true );
+              TimeSpan.parse( value ), true );
           case XmlLabels.XML_PRIORITY -> m_plan.getTasks().setValue( id, Task.FIELD.Priority.ordinal(),
               Integer.parseInt( value ), true );
           case XmlLabels.XML_START -> m_plan.getTasks().setValue( id, Task.FIELD.Start.ordinal(),
@@ -603,6 +608,11 @@ public final class XmlPlanReader
           case XmlLabels.XML_DEADLINE -> m_plan.getTasks().setValue( id, Task.FIELD.Deadline.ordinal(),
               DateTime.parse( value ), true );
           case XmlLabels.XML_COMMENT -> m_plan.getTasks().setValue( id, Task.FIELD.Comment.ordinal(), value, true );
+          case XmlLabels.XML_INDENT -> m_plan.getTasks().get( id ).setIndent( Integer.parseInt( value ) );
+          case XmlLabels.XML_ESTIMATE -> {
+            m_plan.getTasks().get( id ).setEstimate( DurationEstimate.parse( value ) );
+            yield null;
+          }
           // deferred until all tasks/resources exist - see processTasks and applyTaskReference
           case XmlLabels.XML_PREDS -> {
             predecessors[id] = value;
@@ -614,8 +624,7 @@ public final class XmlPlanReader
           }
           // not yet supported by the data model - trace so gaps in loaded data are visible
           case XmlLabels.XML_TYPE -> "TODO loading task type '" + value + "'";
-          case XmlLabels.XML_WORK, XmlLabels.XML_COST, XmlLabels.XML_INDENT -> "TODO loading task attribute '" + attrib
-              + "'";
+          case XmlLabels.XML_WORK, XmlLabels.XML_COST -> "TODO loading task attribute '" + attrib + "'";
           default -> "Unhandled attribute '" + attrib + "' = '" + value + "'";
         };
         if ( problem != null )
@@ -112,11 +112,11 @@ public final class XmlPlanWriter
       }
 
       // write exceptions
-      for ( var exceptionEntry : calendar.getExceptions().entrySet() )
+      for ( int index = 0; index < calendar.getExceptionCount(); index++ )
       {
         xml.startElement( XmlLabels.XML_EXCEPTION );
-        xml.attribute( XmlLabels.XML_DATE, exceptionEntry.getKey() );
-        xml.attribute( XmlLabels.XML_DAY, m_plan.getIndex( exceptionEntry.getValue() ) ); // reference to day ID
+        xml.attribute( XmlLabels.XML_DATE, calendar.getExceptionDate( index ) );
+        xml.attribute( XmlLabels.XML_DAY, m_plan.getIndex( calendar.getExceptionDay( index ) ) ); // reference to day ID
         xml.endElement(); // end XML_EXCEPTION
       }
 
@@ -180,6 +180,9 @@ public final class XmlPlanWriter
       if ( avail != null )
         xml.attribute( XmlLabels.XML_AVAIL, avail );
 
+      if ( resource.getCost() > 0.0 )
+        xml.attribute( XmlLabels.XML_COST, resource.getCost() );
+
       var comment = resource.getValue( Resource.FIELD.Comment.ordinal() );
       if ( comment != null )
         xml.attribute( XmlLabels.XML_COMMENT, comment );
@@ -219,6 +222,8 @@ public final class XmlPlanWriter
       xml.attribute( XmlLabels.XML_TYPE, task.getTaskType() );
       xml.attribute( XmlLabels.XML_DURATION, task.getValue( Task.FIELD.Duration.ordinal() ) );
       xml.attribute( XmlLabels.XML_PRIORITY, task.getValue( Task.FIELD.Priority.ordinal() ) );
+      if ( task.getIndent() > 0 )
+        xml.attribute( XmlLabels.XML_INDENT, task.getIndent() );
 
       // write optional date-time fields
       var start = task.getValue( Task.FIELD.Start.ordinal() );
@@ -246,6 +251,9 @@ public final class XmlPlanWriter
       if ( comment != null )
         xml.attribute( XmlLabels.XML_COMMENT, comment );
 
+      if ( task.getEstimate() != null )
+        xml.attribute( XmlLabels.XML_ESTIMATE, task.getEstimate().toString() );
+
       xml.endElement(); // end XML_TASK
     }
 